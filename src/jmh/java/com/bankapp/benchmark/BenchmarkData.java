@@ -0,0 +1,62 @@
+package com.bankapp.benchmark;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ClientRepository;
+import com.bankapp.repository.ColumnarAccountRepository;
+import com.bankapp.repository.ColumnarClientRepository;
+import com.bankapp.repository.ColumnarStore;
+import com.bankapp.repository.DataVersion;
+import com.bankapp.repository.ObjectAccountRepository;
+import com.bankapp.repository.ObjectClientRepository;
+import com.bankapp.util.IdGenerator;
+
+import java.util.SplittableRandom;
+
+// Заполнение репозиториев тестовыми клиентами для бенчмарков
+final class BenchmarkData {
+
+    final DataVersion dataVersion = new DataVersion();
+    final ClientRepository clientRepository;
+    final AccountRepository accountRepository;
+    final String[] usernames;
+    final String[] accountNumbers;
+    final String[] cardNumbers;
+
+    BenchmarkData(int clients) {
+        this(clients, "objects");
+    }
+
+    // storage - режим хранения: objects или columnar
+    BenchmarkData(int clients, String storage) {
+        if ("columnar".equals(storage)) {
+            ColumnarStore store = new ColumnarStore();
+            clientRepository = new ColumnarClientRepository(store, dataVersion);
+            accountRepository = new ColumnarAccountRepository(store, dataVersion);
+        } else {
+            clientRepository = new ObjectClientRepository(dataVersion);
+            accountRepository = new ObjectAccountRepository(dataVersion);
+        }
+
+        usernames = new String[clients];
+        accountNumbers = new String[clients];
+        cardNumbers = new String[clients];
+
+        IdGenerator idGenerator = new IdGenerator(0);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client(idGenerator.nextClientId(), "Client " + i, "+79" + (100000000 + i), "user" + (i + 1), "pass" + (i + 1));
+            clientRepository.save(client);
+
+            Account account = idGenerator.newAccount();
+            account.setBalanceKopecks(1_000_000_00L + random.nextInt(1_000_000));
+            clientRepository.addAccount(client, account);
+            accountRepository.save(account);
+
+            usernames[i] = client.getUsername();
+            accountNumbers[i] = account.getAccountNumber();
+            cardNumbers[i] = account.getCardNumber();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.bankapp.benchmark;
+
+import com.bankapp.model.Account;
+import com.bankapp.util.IdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание счетов и id клиентов: прежний конструктор Account на UUID.randomUUID() против
+ * IdGenerator. Конкуренцию за SecureRandom видно при запуске с -Djmh.threads=N.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private IdGenerator idGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        idGenerator = new IdGenerator(0);
+    }
+
+    @Benchmark
+    public Account legacyAccount() {
+        return new Account();
+    }
+
+    @Benchmark
+    public Account generatedAccount() {
+        return idGenerator.newAccount();
+    }
+
+    @Benchmark
+    public String legacyClientId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String generatedClientId() {
+        return idGenerator.nextClientId();
+    }
+}
@@ -0,0 +1,125 @@
+package com.bankapp.benchmark;
+
+import com.bankapp.metrics.Instrumented;
+import com.bankapp.metrics.InstrumentedInterceptor;
+import com.bankapp.service.HelloMetricsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы метрик на один вызов: прежняя ручная схема со счётчиком, таймером
+ * и Gauge на ConcurrentHashMap против @Instrumented, а также метрики приветствия.
+ * <p>
+ * legacyHandWiredHistogram и instrumentedHistogram - те же схемы с гистограммой и SLO-корзинами
+ * таймера, включаемыми в @Instrumented отдельно. Конкуренцию за общий ключ ConcurrentHashMap
+ * показывает запуск в несколько потоков (-Djmh.threads).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"100", "100000"})
+    public int distinctNames;
+
+    private Counter legacyCalls;
+    private Timer legacyTimer;
+    private Timer legacyHistogramTimer;
+    private final ConcurrentMap<String, Integer> legacyInFlight = new ConcurrentHashMap<>();
+    private Operation instrumented;
+    private HelloMetricsService helloMetrics;
+
+    public static class Operation {
+        @Instrumented("bench.operation")
+        public int run(int value) {
+            return value + 1;
+        }
+
+        @Instrumented(value = "bench.operation_histogram", histogram = true, slo = {50, 100, 250, 500, 1000, 2500})
+        public int runWithHistogram(int value) {
+            return value + 1;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+        legacyCalls = Counter.builder("bench.legacy.calls").register(registry);
+        legacyTimer = Timer.builder("bench.legacy.duration").register(registry);
+        legacyHistogramTimer = Timer.builder("bench.legacy_histogram.duration")
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+                        Duration.ofMillis(500), Duration.ofMillis(1000), Duration.ofMillis(2500))
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+        Gauge.builder("bench.legacy.in_flight", legacyInFlight, map -> map.getOrDefault("in_progress", 0))
+                .register(registry);
+        legacyInFlight.put("in_progress", 0);
+
+        ProxyFactory factory = new ProxyFactory(new Operation());
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Instrumented.class),
+                new InstrumentedInterceptor(registry)));
+        instrumented = (Operation) factory.getProxy();
+
+        helloMetrics = new HelloMetricsService(registry, 100, 14);
+    }
+
+    @Benchmark
+    public int legacyHandWired() {
+        return handWired(legacyTimer);
+    }
+
+    @Benchmark
+    public int legacyHandWiredHistogram() {
+        return handWired(legacyHistogramTimer);
+    }
+
+    @Benchmark
+    public int instrumentedAnnotation() {
+        return instrumented.run(ThreadLocalRandom.current().nextInt());
+    }
+
+    @Benchmark
+    public int instrumentedHistogram() {
+        return instrumented.runWithHistogram(ThreadLocalRandom.current().nextInt());
+    }
+
+    private int handWired(Timer timer) {
+        legacyCalls.increment();
+        legacyInFlight.compute("in_progress", (k, v) -> v == null ? 1 : v + 1);
+        try {
+            return timer.record(() -> ThreadLocalRandom.current().nextInt());
+        } finally {
+            legacyInFlight.compute("in_progress", (k, v) -> v == null || v <= 0 ? 0 : v - 1);
+        }
+    }
+
+    @Benchmark
+    public void helloMetrics() {
+        String name = "name" + ThreadLocalRandom.current().nextInt(distinctNames);
+        helloMetrics.incrementRequests(name);
+        Timer.Sample sample = helloMetrics.startTimer();
+        helloMetrics.addUniqueName(name);
+        helloMetrics.recordLatency(sample, name);
+    }
+}
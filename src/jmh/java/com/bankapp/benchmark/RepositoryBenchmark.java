@@ -0,0 +1,54 @@
+package com.bankapp.benchmark;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск в репозиториях клиентов и счетов в зависимости от объёма данных и режима хранения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"objects", "columnar"})
+    public String storage;
+
+    private BenchmarkData data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new BenchmarkData(size, storage);
+    }
+
+    @Benchmark
+    public Optional<Client> findClientByUsername() {
+        return data.clientRepository.findByUsername(data.usernames[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public Optional<Client> findClientByAccountNumber() {
+        return data.clientRepository.findByAccountNumber(data.accountNumbers[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public Optional<Account> findAccountByNumber() {
+        return data.accountRepository.findByNumber(data.accountNumbers[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public Optional<Account> findAccountByCardNumber() {
+        return data.accountRepository.findByCardNumber(data.cardNumbers[ThreadLocalRandom.current().nextInt(size)]);
+    }
+}
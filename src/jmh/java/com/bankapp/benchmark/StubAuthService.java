@@ -0,0 +1,32 @@
+package com.bankapp.benchmark;
+
+import com.bankapp.service.AuthMetricsService;
+import com.bankapp.service.AuthService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.springframework.web.client.RestTemplate;
+
+// AuthService без обращений к authmock: пользователь авторизован, логин задаётся на поток
+class StubAuthService extends AuthService {
+
+    private static final ThreadLocal<String> LOGGED_USER = new ThreadLocal<>();
+
+    StubAuthService(MeterRegistry registry) {
+        super(new RestTemplate(), new AuthMetricsService(registry, new PoolingHttpClientConnectionManager()),
+                "http://localhost:8081", false, 1, 1, 1, 0, 1, 1);
+    }
+
+    static void loginCurrentThread(String username) {
+        LOGGED_USER.set(username);
+    }
+
+    @Override
+    public Boolean isLogged() {
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public String loggedUser() {
+        return LOGGED_USER.get();
+    }
+}
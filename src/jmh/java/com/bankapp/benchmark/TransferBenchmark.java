@@ -0,0 +1,146 @@
+package com.bankapp.benchmark;
+
+import com.bankapp.controller.TransactionController;
+import com.bankapp.model.Account;
+import com.bankapp.repository.ClientRepository;
+import com.bankapp.service.BatchTransferService;
+import com.bankapp.service.ClientListCache;
+import com.bankapp.service.ClusterMetricsService;
+import com.bankapp.service.ClusterService;
+import com.bankapp.service.ClusterTransferService;
+import com.bankapp.service.IdempotencyStore;
+import com.bankapp.service.RecipientSelectionStore;
+import com.bankapp.service.SnapshotMetricsService;
+import com.bankapp.service.SnapshotStore;
+import com.bankapp.service.JournalMetricsService;
+import com.bankapp.service.TransactionMetricsService;
+import com.bankapp.service.TransactionHistory;
+import com.bankapp.service.TransferEngine;
+import com.bankapp.service.TransferJournal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Обновление балансов при переводе: движок переводов отдельно и полный путь
+ * TransactionController.transfer с заглушкой authmock. Число потоков задаётся параметром -t.
+ * Параметр journal сравнивает работу без журнала и с журналом в режиме SYNC (group commit).
+ * controllerTransferWithKey - перевод с новым ключом идемпотентности на каждый запрос,
+ * controllerTransferReplay - повтор одного ключа, обслуживаемый из сохранённого результата.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"OFF", "SYNC"})
+    public String journal;
+
+    private BenchmarkData data;
+    private Path journalDir;
+    private TransferJournal transferJournal;
+    private TransferEngine transferEngine;
+    private RecipientSelectionStore selectionStore;
+    private TransactionController controller;
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = new BenchmarkData(size);
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        journalDir = Files.createTempDirectory("journal-bench");
+        boolean journalEnabled = !"OFF".equals(journal);
+        SnapshotStore snapshotStore = new SnapshotStore(data.clientRepository, data.accountRepository,
+                new SnapshotMetricsService(registry), journalDir.resolve("snapshot.bin").toString(), false, 1 << 22, 1);
+        transferJournal = new TransferJournal(data.clientRepository, data.accountRepository,
+                new JournalMetricsService(registry), snapshotStore, journalEnabled, journalDir.resolve("journal.bin").toString(),
+                journalEnabled ? TransferJournal.Durability.valueOf(journal) : TransferJournal.Durability.NONE,
+                10, 1 << 20);
+
+        TransactionMetricsService transactionMetrics = new TransactionMetricsService(registry);
+        transferEngine = new TransferEngine(transactionMetrics, transferJournal,
+                new TransactionHistory(transactionMetrics, true, 64, 10_000_000), data.dataVersion, 1024);
+        selectionStore = new RecipientSelectionStore(transactionMetrics, TimeUnit.HOURS.toMillis(1), size);
+        BatchTransferService batchTransferService = new BatchTransferService(data.accountRepository, data.clientRepository,
+                transferEngine, transferJournal, 1);
+        ObjectMapper objectMapper = new ObjectMapper();
+        // Один узел без кластера: все получатели локальные
+        ClusterService cluster = new ClusterService(new RestTemplate(), false, "", 0, 128, "");
+        ClusterTransferService clusterTransfers = new ClusterTransferService(cluster,
+                new ClusterMetricsService(registry, cluster, data.clientRepository, data.accountRepository),
+                transferEngine, data.clientRepository, data.accountRepository, 30_000, 100_000, 5, 50);
+        controller = new TransactionController(new StubAuthService(registry), transactionMetrics,
+                data.clientRepository, transferEngine, selectionStore, batchTransferService,
+                new IdempotencyStore(transactionMetrics, TimeUnit.MINUTES.toMillis(10), 200_000),
+                new ClientListCache(data.clientRepository, data.dataVersion, objectMapper, transactionMetrics, true),
+                cluster, clusterTransfers, 10000, objectMapper);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        transferJournal.destroy();
+        try (var files = Files.walk(journalDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UserState {
+        String username;
+        long requests;
+
+        @Setup(Level.Trial)
+        public void setUp(TransferBenchmark benchmark) {
+            int index = benchmark.nextUser.getAndIncrement() % benchmark.size;
+            username = benchmark.data.usernames[index];
+            StubAuthService.loginCurrentThread(username);
+
+            // Получатель - следующий клиент по кругу
+            ClientRepository clients = benchmark.data.clientRepository;
+            String recipient = benchmark.data.usernames[(index + 1) % benchmark.size];
+            clients.findByUsername(recipient).ifPresent(client ->
+                    benchmark.selectionStore.select(username, client, client.getAccounts().get(0)));
+        }
+    }
+
+    @Benchmark
+    public TransferEngine.Status engineTransfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Account from = data.accountRepository.findByNumber(data.accountNumbers[random.nextInt(size)]).orElseThrow();
+        Account to = data.accountRepository.findByNumber(data.accountNumbers[random.nextInt(size)]).orElseThrow();
+        return transferEngine.transfer(from, to, 1);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> controllerTransfer(UserState user) {
+        return controller.transfer(0.01, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> controllerTransferWithKey(UserState user) {
+        return controller.transfer(0.01, user.username + "-" + user.requests++);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> controllerTransferReplay(UserState user) {
+        return controller.transfer(0.01, user.username);
+    }
+}
@@ -0,0 +1,96 @@
+package com.bankapp.benchmark;
+
+import com.bankapp.util.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пачка одновременных запросов, каждый из которых блокируется на вызове authmock
+ * (latencyMs): пул обычных потоков размером с пул Tomcat по умолчанию против виртуального
+ * потока на запрос. Вариант virtual-pinned ждёт внутри synchronized и показывает, как
+ * закрепление на несущих потоках сводит выигрыш на нет.
+ * <p>
+ * Варианты virtual требуют JDK 21: mvn -Pjava21,jmh -DskipTests verify -Djmh.include=VirtualThreadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    // Максимальный размер пула потоков Tomcat по умолчанию
+    private static final int PLATFORM_POOL_SIZE = 200;
+
+    @Param({"platform", "virtual", "virtual-pinned"})
+    public String executor;
+
+    @Param({"1000", "10000"})
+    public int concurrency;
+
+    @Param({"10"})
+    public int latencyMs;
+
+    private ExecutorService executorService;
+    private boolean pinned;
+    private Object[] monitors;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executorService = "platform".equals(executor)
+                ? Executors.newFixedThreadPool(PLATFORM_POOL_SIZE)
+                : VirtualThreads.newPerTaskExecutor("bench-");
+        pinned = "virtual-pinned".equals(executor);
+        // Мониторы живут в поле, чтобы JIT не убрал блокировку как неразделяемую
+        monitors = new Object[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            monitors[i] = new Object();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Object monitor = monitors[i];
+            executorService.execute(() -> {
+                try {
+                    if (pinned) {
+                        blockPinned(monitor);
+                    } else {
+                        block();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void block() {
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Каждая задача блокируется на своём мониторе, но всё равно удерживает несущий поток
+    private void blockPinned(Object monitor) {
+        synchronized (monitor) {
+            block();
+        }
+    }
+}
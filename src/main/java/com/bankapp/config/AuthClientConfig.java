@@ -0,0 +1,86 @@
+package com.bankapp.config;
+
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+// HTTP-клиенты к authmock: пул keep-alive соединений и таймауты на каждый вызов.
+// Блокирующий RestTemplate для MVC и неблокирующий WebClient для /reactive/transactions
+@Configuration
+public class AuthClientConfig {
+
+    @Value("${authmock.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${authmock.http.connect-timeout-ms:500}")
+    private long connectTimeoutMs;
+
+    @Value("${authmock.http.read-timeout-ms:2000}")
+    private long readTimeoutMs;
+
+    @Value("${authmock.http.connection-request-timeout-ms:200}")
+    private long connectionRequestTimeoutMs;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager authConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient authHttpClient(PoolingHttpClientConnectionManager authConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(authConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate authRestTemplate(CloseableHttpClient authHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(authHttpClient));
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider authConnectionProvider() {
+        return ConnectionProvider.builder("authmock")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @Bean
+    public WebClient authWebClient(WebClient.Builder builder, ConnectionProvider authConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(authConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+}
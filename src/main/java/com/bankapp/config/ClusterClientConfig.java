@@ -0,0 +1,71 @@
+package com.bankapp.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+// HTTP-клиент к другим узлам кластера: отдельный пул keep-alive соединений и таймауты.
+// Ответы 4xx и 5xx не превращаются в исключения: пересылаемый ответ отдаётся клиенту как есть
+@Configuration
+public class ClusterClientConfig {
+
+    @Value("${cluster.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${cluster.http.connect-timeout-ms:500}")
+    private long connectTimeoutMs;
+
+    @Value("${cluster.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${cluster.http.connection-request-timeout-ms:200}")
+    private long connectionRequestTimeoutMs;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager clusterConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient clusterHttpClient(PoolingHttpClientConnectionManager clusterConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(clusterConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate clusterRestTemplate(CloseableHttpClient clusterHttpClient) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(clusterHttpClient));
+        restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        });
+        return restTemplate;
+    }
+}
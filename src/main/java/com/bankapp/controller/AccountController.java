@@ -1,26 +1,40 @@
 package com.bankapp.controller;
 
+import com.bankapp.metrics.Instrumented;
 import com.bankapp.model.Account;
-import com.bankapp.service.AccountMetricsService;
+import com.bankapp.model.TransactionRecord;
 import com.bankapp.service.AccountService;
+import com.bankapp.service.ClusterUnavailableException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/accounts")
 public class AccountController {
 
     private final AccountService accountService;
-    private final AccountMetricsService accountMetrics;
+    private final int lookupMaxItems;
 
-    public AccountController(AccountService accountService, AccountMetricsService accountMetrics) {
+    public AccountController(AccountService accountService,
+                             @Value("${accounts.lookup.max-items:10000}") int lookupMaxItems) {
         this.accountService = accountService;
-        this.accountMetrics = accountMetrics;
+        this.lookupMaxItems = lookupMaxItems;
     }
 
     @Operation(
@@ -40,16 +54,113 @@ public class AccountController {
                     mediaType = "application/json",
                     schema = @Schema(implementation = Account.class)))
     @PostMapping("/create")
+    @Instrumented(value = "bankapp.accounts.create", description = "создание счета",
+            inFlight = "bankapp.accounts.active_creations")
     public Account create(@RequestParam String clientId) {
-        accountMetrics.getAccountCreateCalls().increment();
-        accountMetrics.incrementActiveCreations();
-
-        try {
-            return accountMetrics.getAccountCreateTimer().record(() ->
-                    accountService.createAccount(clientId)
-            );
-        } finally {
-            accountMetrics.decrementActiveCreations();
+        return accountService.createAccount(clientId);
+    }
+
+    @Operation(
+            summary = "Поиск счета по номеру",
+            description = "Возвращает счет по его номеру",
+            parameters = {
+                    @Parameter(
+                            name = "number",
+                            description = "Номер счета",
+                            required = true,
+                            example = "1107debec4cb",
+                            in = ParameterIn.PATH)})
+    @ApiResponse(
+            responseCode = "200",
+            description = "Счет найден",
+            content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = Account.class)))
+    @ApiResponse(responseCode = "404", description = "Счет не найден")
+    @GetMapping("/{number}")
+    @Instrumented(value = "bankapp.accounts.find", description = "поиск счета по номеру")
+    public ResponseEntity<Account> findByNumber(@PathVariable String number) {
+        return accountService.findByNumber(number)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "История операций по счету",
+            description = "Возвращает последние операции по счету от новых к старым. Хранится не более " +
+                    "history.per-account операций на счет",
+            parameters = {
+                    @Parameter(
+                            name = "number",
+                            description = "Номер счета",
+                            required = true,
+                            example = "4081000000000001",
+                            in = ParameterIn.PATH),
+                    @Parameter(
+                            name = "from",
+                            description = "Начало периода (включительно), ISO-8601",
+                            example = "2024-07-01T00:00:00Z",
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "to",
+                            description = "Конец периода (не включительно), ISO-8601",
+                            example = "2024-07-02T00:00:00Z",
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Максимальное количество операций",
+                            example = "50",
+                            in = ParameterIn.QUERY)})
+    @ApiResponse(
+            responseCode = "200",
+            description = "Операции по счету",
+            content = @Content(
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = TransactionRecord.class))))
+    @ApiResponse(responseCode = "404", description = "Счет не найден")
+    @GetMapping("/{number}/transactions")
+    @Instrumented(value = "bankapp.accounts.transactions", description = "история операций по счету")
+    public ResponseEntity<List<TransactionRecord>> transactions(
+            @PathVariable String number,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "50") int limit) {
+        return accountService.findTransactions(number, from, to, limit)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Пакетный поиск счетов",
+            description = "Возвращает найденные счета по списку номеров за один запрос. " +
+                    "Ненайденные номера в ответ не попадают",
+            requestBody = @RequestBody(
+                    description = "Список номеров счетов",
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            examples = {@ExampleObject("[\"1107debec4cb\", \"de42e1e55641\"]")})))
+    @ApiResponse(
+            responseCode = "200",
+            description = "Номер счета -> счет, в порядке запроса",
+            content = @Content(mediaType = "application/json"))
+    @ApiResponse(
+            responseCode = "400",
+            description = "Превышено допустимое количество номеров")
+    @PostMapping("/lookup")
+    @Instrumented(value = "bankapp.accounts.lookup", description = "пакетный поиск счетов")
+    public ResponseEntity<?> lookup(@org.springframework.web.bind.annotation.RequestBody List<String> numbers) {
+        if (numbers.size() > lookupMaxItems) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: В запросе не более " + lookupMaxItems + " номеров счетов!");
         }
+        return ResponseEntity.ok(accountService.findAllByNumbers(numbers));
+    }
+
+    // Узел кластера, владеющий частью запрошенных счетов, недоступен
+    @ExceptionHandler(ClusterUnavailableException.class)
+    public ResponseEntity<String> handleClusterUnavailable(ClusterUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("❌ Ошибка: Узел кластера недоступен, повторите попытку позже.");
     }
-}
+}
\ No newline at end of file
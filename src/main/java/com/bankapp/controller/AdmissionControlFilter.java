@@ -0,0 +1,176 @@
+package com.bankapp.controller;
+
+import com.bankapp.service.TransactionMetricsService;
+import com.bankapp.util.AdaptiveConcurrencyLimit;
+import com.bankapp.util.ExpiringCache;
+import com.bankapp.util.TokenBucket;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Контроль допуска перед {@link TransactionController} и {@link AccountController}.
+ * <p>
+ * Сначала проверяется лимит частоты клиента (ведро токенов на клиента), затем адаптивный предел
+ * одновременных запросов, который снижается, когда ответы становятся медленнее
+ * admission.concurrency.latency-threshold-ms или завершаются ошибкой 5xx. Лишние запросы сразу
+ * получают 429 или 503 с заголовком Retry-After и не занимают потоки в ожидании authmock.
+ * <p>
+ * Клиент определяется по заголовку admission.client-header, а без него - по адресу. Пользователь
+ * из authmock для этого не подходит: его получение само требует вызова, от которого нужно
+ * защититься. Ведро создаётся полным и пересоздаётся не раньше чем через минуту или время
+ * наполнения ведра, если оно дольше.
+ */
+@Component
+@Order(AdmissionControlFilter.ORDER)
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    // Раньше FaultInjectionFilter: внедрённая задержка учитывается как задержка ответа
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 10;
+
+    private static final String[] PATHS = {"/transactions", "/accounts"};
+    private static final long MIN_BUCKET_TTL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final TransactionMetricsService transactionMetrics;
+    private final String clientHeader;
+    private final boolean rateLimitEnabled;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final ExpiringCache<String, TokenBucket> buckets;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    public AdmissionControlFilter(TransactionMetricsService transactionMetrics,
+                                  @Value("${admission.client-header:X-Client-Id}") String clientHeader,
+                                  @Value("${admission.rate-limit.per-second:1000}") double permitsPerSecond,
+                                  @Value("${admission.rate-limit.burst:2000}") int burst,
+                                  @Value("${admission.rate-limit.max-clients:100000}") int maxClients,
+                                  @Value("${admission.concurrency.initial-limit:100}") int initialLimit,
+                                  @Value("${admission.concurrency.min-limit:10}") int minLimit,
+                                  @Value("${admission.concurrency.max-limit:200}") int maxLimit,
+                                  @Value("${admission.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${admission.concurrency.latency-threshold-ms:500}") long latencyThresholdMs) {
+        this.transactionMetrics = transactionMetrics;
+        this.clientHeader = clientHeader;
+        this.rateLimitEnabled = permitsPerSecond > 0;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        // Ведро не должно пересоздаваться полным раньше, чем успело бы наполниться само
+        long bucketTtlMs = rateLimitEnabled
+                ? Math.max(MIN_BUCKET_TTL_MS, (long) (burst * 1000 / permitsPerSecond))
+                : MIN_BUCKET_TTL_MS;
+        this.buckets = new ExpiringCache<>(bucketTtlMs, TimeUnit.MILLISECONDS, maxClients);
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, backoffRatio,
+                latencyThresholdMs, TimeUnit.MILLISECONDS);
+        transactionMetrics.bindAdmission(concurrencyLimit, buckets);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : PATHS) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (rateLimitEnabled) {
+            TokenBucket bucket = buckets.getOrLoad(clientKey(request), k -> new TokenBucket(permitsPerSecond, burst));
+            if (!bucket.tryAcquire()) {
+                transactionMetrics.getAdmissionRateLimited().increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, bucket.nanosUntilAvailable(),
+                        "❌ Ошибка: Превышена частота запросов, повторите попытку позже.");
+                return;
+            }
+        }
+
+        if (!concurrencyLimit.tryAcquire()) {
+            transactionMetrics.getAdmissionOverloaded().increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 0,
+                    "❌ Ошибка: Сервис перегружен, повторите попытку позже.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException | Error e) {
+            concurrencyLimit.release(System.nanoTime() - start, true);
+            throw e;
+        }
+
+        // Асинхронный ответ (потоковая выгрузка) занимает место до завершения обработки
+        if (isAsyncStarted(request)) {
+            request.getAsyncContext().addListener(new AsyncCompletion(start), request, response);
+            return;
+        }
+        concurrencyLimit.release(System.nanoTime() - start, response.getStatus() >= 500);
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : client;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos,
+                               String message) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+
+    // Освобождение места после завершения асинхронной обработки; onComplete вызывается и после ошибки
+    private final class AsyncCompletion implements AsyncListener {
+        private final long start;
+        private volatile boolean failed;
+
+        private AsyncCompletion(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            boolean serverError = event.getSuppliedResponse() instanceof HttpServletResponse http
+                    && http.getStatus() >= 500;
+            concurrencyLimit.release(System.nanoTime() - start, failed || serverError);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+
+        // Новый асинхронный цикл (например, после внедрённой задержки) сообщает о завершении
+        // только тем слушателям, которые в нём зарегистрированы
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this, event.getSuppliedRequest(), event.getSuppliedResponse());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bankapp.controller;
+
+import com.bankapp.service.ClusterService;
+import com.bankapp.service.ClusterTransferService;
+import io.swagger.v3.oas.annotations.Hidden;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Внутренние вызовы между узлами кластера: поиск получателя и фазы межузлового перевода
+ * (см. {@link ClusterTransferService}). В описание API не входят.
+ * <p>
+ * Вызовы принимаются только от узлов кластера с общим секретом {@link ClusterService#SECRET_HEADER},
+ * остальным - 403. Без cluster.enabled=true контроллера нет и все пути отвечают 404.
+ */
+@Hidden
+@RestController
+@RequestMapping("/cluster")
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class ClusterController {
+
+    private final ClusterService cluster;
+    private final ClusterTransferService clusterTransfers;
+
+    public ClusterController(ClusterService cluster, ClusterTransferService clusterTransfers) {
+        this.cluster = cluster;
+        this.clusterTransfers = clusterTransfers;
+    }
+
+    @GetMapping("/recipients/{username}")
+    public ResponseEntity<ClusterTransferService.Recipient> recipient(
+            @PathVariable String username, @RequestParam String accountNumber,
+            @RequestHeader(value = ClusterService.SECRET_HEADER, required = false) String secret) {
+        if (!cluster.isPeer(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return clusterTransfers.findLocalRecipient(username, accountNumber)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/transfers/{id}/prepare")
+    public ResponseEntity<Void> prepare(@PathVariable String id, @RequestParam String account,
+                                        @RequestParam long amountKopecks, @RequestParam String counterparty,
+                                        @RequestHeader(value = ClusterService.SECRET_HEADER, required = false)
+                                        String secret) {
+        if (!cluster.isPeer(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return clusterTransfers.prepare(id, account, amountKopecks, counterparty)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/transfers/{id}/commit")
+    public ResponseEntity<Void> commit(@PathVariable String id,
+                                       @RequestHeader(value = ClusterService.SECRET_HEADER, required = false)
+                                       String secret) {
+        if (!cluster.isPeer(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return clusterTransfers.commit(id)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.status(HttpStatus.GONE).build();
+    }
+
+    @PostMapping("/transfers/{id}/abort")
+    public ResponseEntity<Void> abort(@PathVariable String id,
+                                      @RequestHeader(value = ClusterService.SECRET_HEADER, required = false)
+                                      String secret) {
+        if (!cluster.isPeer(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        clusterTransfers.abort(id);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.bankapp.controller;
+
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ClientRepository;
+import com.bankapp.service.ClusterService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Состав кластера: GET /actuator/cluster - узлы, этот узел и объём его данных,
+ * GET /actuator/cluster/{key} - узел-владелец логина, id или номера счета.
+ */
+@Component
+@Endpoint(id = "cluster")
+public class ClusterEndpoint {
+
+    private final ClusterService cluster;
+    private final ClientRepository clientRepository;
+    private final AccountRepository accountRepository;
+
+    public ClusterEndpoint(ClusterService cluster, ClientRepository clientRepository,
+                           AccountRepository accountRepository) {
+        this.cluster = cluster;
+        this.clientRepository = clientRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    @ReadOperation
+    public Map<String, Object> topology() {
+        Map<String, Object> topology = new LinkedHashMap<>();
+        topology.put("enabled", cluster.isEnabled());
+        topology.put("self", cluster.nodeName(cluster.getSelfIndex()));
+        topology.put("nodes", cluster.getNodes());
+        topology.put("virtualNodes", cluster.getVirtualNodes());
+        topology.put("clients", clientRepository.count());
+        topology.put("accounts", accountRepository.count());
+        return topology;
+    }
+
+    @ReadOperation
+    public Map<String, Object> owner(@Selector String key) {
+        Map<String, Object> owner = new LinkedHashMap<>();
+        owner.put("key", key);
+        owner.put("owner", cluster.nodeName(cluster.ownerOf(key)));
+        owner.put("local", cluster.isLocal(key));
+        return owner;
+    }
+}
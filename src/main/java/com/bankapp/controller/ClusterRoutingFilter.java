@@ -0,0 +1,185 @@
+package com.bankapp.controller;
+
+import com.bankapp.service.AuthService;
+import com.bankapp.service.AuthUnavailableException;
+import com.bankapp.service.ClusterMetricsService;
+import com.bankapp.service.ClusterService;
+import com.bankapp.service.ClusterUnavailableException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пересылка запросов к данным другого узла кластера узлу-владельцу (см. {@link ClusterService}).
+ * <p>
+ * Ключ запроса: номер счета для GET /accounts/{number} и /accounts/{number}/transactions,
+ * clientId для POST /accounts/create, логин авторизованного пользователя для выбора получателя
+ * и перевода - они выполняются на узле отправителя. Запрос к чужим данным пересылается владельцу
+ * с заголовками и телом, ответ владельца возвращается клиенту как есть. Пересланный запрос
+ * повторно не пересылается: если списки узлов на узлах разошлись, он получает 421.
+ * <p>
+ * Фильтр стоит после контроля допуска: пересылка занимает место в пределе одновременных
+ * запросов узла, принявшего запрос. Внедрённые сбои применяются на узле-владельце.
+ */
+@Component
+@Order(ClusterRoutingFilter.ORDER)
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    // Между AdmissionControlFilter и FaultInjectionFilter
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 5;
+
+    // 421 Misdirected Request (RFC 9110, 15.5.20); в HttpStatus этого кода нет
+    private static final int MISDIRECTED_REQUEST = 421;
+
+    private static final String ACCOUNTS_PREFIX = "/accounts/";
+    private static final Set<String> USER_ROUTED_PATHS = Set.of("/transactions/select-recipient", "/transactions/transfer");
+
+    // Заголовки соединения не передаются дальше (RFC 9110, 7.6.1)
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-connection",
+            "te", "trailer", "transfer-encoding", "upgrade", "host", "content-length");
+
+    private final ClusterService cluster;
+    private final ClusterMetricsService clusterMetrics;
+    private final AuthService authService;
+    private final String clientHeader;
+
+    public ClusterRoutingFilter(ClusterService cluster, ClusterMetricsService clusterMetrics, AuthService authService,
+                                @Value("${admission.client-header:X-Client-Id}") String clientHeader) {
+        this.cluster = cluster;
+        this.clusterMetrics = clusterMetrics;
+        this.authService = authService;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return !USER_ROUTED_PATHS.contains(path) && !path.startsWith(ACCOUNTS_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Пометка пересылки без общего секрета - обычный запрос клиента
+        boolean fromPeer = request.getHeader(ClusterService.FORWARDED_HEADER) != null
+                && cluster.isPeer(request.getHeader(ClusterService.SECRET_HEADER));
+        String key = routingKey(request);
+        if (key == null || cluster.isLocal(key)) {
+            (fromPeer ? clusterMetrics.getPeerRequests() : clusterMetrics.getClientRequests()).increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        if (fromPeer) {
+            clusterMetrics.getMisdirectedRequests().increment();
+            writeError(response, MISDIRECTED_REQUEST,
+                    "❌ Ошибка: Узел не владеет данными запроса, проверьте cluster.nodes на всех узлах.");
+            return;
+        }
+        forward(cluster.ownerOf(key), request, response);
+    }
+
+    // null - запрос обрабатывается здесь: ключа нет или проверку авторизации выполнит обработчик
+    private String routingKey(HttpServletRequest request) {
+        String path = path(request);
+        if (USER_ROUTED_PATHS.contains(path)) {
+            try {
+                return authService.loggedUser();
+            } catch (AuthUnavailableException e) {
+                return null;
+            }
+        }
+        if (path.equals("/accounts/create")) {
+            // Только из строки запроса: чтение параметров формы поглотило бы тело пересылаемого запроса
+            String clientId = UriComponentsBuilder.newInstance().query(request.getQueryString()).build()
+                    .getQueryParams().getFirst("clientId");
+            return clientId != null ? UriUtils.decode(clientId, StandardCharsets.UTF_8) : null;
+        }
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return null;
+        }
+        // /accounts/{number} и /accounts/{number}/transactions
+        String rest = path.substring(ACCOUNTS_PREFIX.length());
+        int slash = rest.indexOf('/');
+        if (slash < 0) {
+            return rest.isEmpty() ? null : rest;
+        }
+        return rest.substring(slash).equals("/transactions") ? rest.substring(0, slash) : null;
+    }
+
+    private void forward(int owner, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, Collections.list(request.getHeaders(name)));
+            }
+        }
+        // Лимит частоты на узле-владельце должен считаться по клиенту, а не по узлу, переславшему запрос
+        if (request.getHeader(clientHeader) == null) {
+            headers.set(clientHeader, request.getRemoteAddr());
+        }
+        byte[] body = request.getInputStream().readAllBytes();
+        String query = request.getQueryString();
+
+        ResponseEntity<byte[]> forwarded;
+        long start = System.nanoTime();
+        try {
+            forwarded = cluster.exchange(owner, HttpMethod.valueOf(request.getMethod()),
+                    request.getRequestURI() + (query != null ? "?" + query : ""), headers,
+                    body.length > 0 ? body : null, new ParameterizedTypeReference<byte[]>() { });
+        } catch (ClusterUnavailableException e) {
+            clusterMetrics.getForwardErrors(owner).increment();
+            logger.debug(e.getMessage(), e);
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "❌ Ошибка: Узел кластера недоступен, повторите попытку позже.");
+            return;
+        } finally {
+            clusterMetrics.getForwarded(owner).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        response.setStatus(forwarded.getStatusCode().value());
+        forwarded.getHeaders().forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : values) {
+                    response.addHeader(name, value);
+                }
+            }
+        });
+        byte[] responseBody = forwarded.getBody();
+        if (responseBody != null) {
+            response.setContentLength(responseBody.length);
+            response.getOutputStream().write(responseBody);
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,66 @@
+package com.bankapp.controller;
+
+import com.bankapp.service.FaultInjectionService;
+import com.bankapp.util.LatencyDistribution;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Профили внедрения сбоев: GET /actuator/faults - текущие профили, POST - задать профиль группы
+ * (target, latency, jitterMs, errorRate, errorStatus), DELETE - сбросить профиль группы
+ * или, без target, все профили. Формат latency описан в {@link LatencyDistribution}.
+ */
+@Component
+@Endpoint(id = "faults")
+public class FaultInjectionEndpoint {
+
+    private final FaultInjectionService faults;
+
+    public FaultInjectionEndpoint(FaultInjectionService faults) {
+        this.faults = faults;
+    }
+
+    @ReadOperation
+    public Map<FaultInjectionService.Target, FaultInjectionService.FaultProfile> profiles() {
+        return faults.getProfiles();
+    }
+
+    @WriteOperation
+    public Map<FaultInjectionService.Target, FaultInjectionService.FaultProfile> configure(
+            String target, @Nullable String latency, @Nullable Long jitterMs,
+            @Nullable Double errorRate, @Nullable Integer errorStatus) {
+        try {
+            faults.configure(FaultInjectionService.Target.parse(target), new FaultInjectionService.FaultProfile(
+                    LatencyDistribution.parse(latency),
+                    jitterMs == null ? 0 : jitterMs,
+                    errorRate == null ? 0 : errorRate,
+                    errorStatus == null ? 500 : errorStatus));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return faults.getProfiles();
+    }
+
+    @DeleteOperation
+    public Map<FaultInjectionService.Target, FaultInjectionService.FaultProfile> reset(@Nullable String target) {
+        try {
+            if (target == null) {
+                for (FaultInjectionService.Target each : FaultInjectionService.Target.values()) {
+                    faults.reset(each);
+                }
+            } else {
+                faults.reset(FaultInjectionService.Target.parse(target));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return faults.getProfiles();
+    }
+}
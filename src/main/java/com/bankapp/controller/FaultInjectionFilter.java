@@ -0,0 +1,115 @@
+package com.bankapp.controller;
+
+import com.bankapp.service.FaultInjectionService;
+import com.bankapp.service.FaultMetricsService;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Внедрение задержек и ошибок в ответы /accounts, /transactions и /hello по профилям
+ * {@link FaultInjectionService}.
+ * <p>
+ * Задержка не занимает поток запроса: запрос переводится в асинхронный режим, поток возвращается
+ * в пул Tomcat, а по истечении задержки один поток-планировщик повторно передаёт запрос
+ * в обработку (AsyncContext.dispatch). Поэтому внедрённая задержка не ограничивает пропускную
+ * способность размером пула потоков. Ответ с внедрённой ошибкой после задержки формируется
+ * в потоке контейнера, обработчик запроса при этом не вызывается.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "faults.enabled", havingValue = "true", matchIfMissing = true)
+public class FaultInjectionFilter extends OncePerRequestFilter {
+
+    // Запас таймаута асинхронной обработки сверх задержки на выполнение самого запроса
+    private static final long ASYNC_TIMEOUT_MARGIN_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final FaultInjectionService faults;
+    private final FaultMetricsService faultMetrics;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    public FaultInjectionFilter(FaultInjectionService faults, FaultMetricsService faultMetrics) {
+        this.faults = faults;
+        this.faultMetrics = faultMetrics;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "fault-delay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return target(request).isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        FaultInjectionService.Target target = target(request).orElseThrow();
+        Optional<FaultInjectionService.Decision> decisionOpt = faults.decide(target);
+        if (decisionOpt.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        FaultInjectionService.Decision decision = decisionOpt.get();
+        if (decision.isError()) {
+            faultMetrics.getInjectedErrors(target).increment();
+        }
+        if (decision.delayNanos() == 0) {
+            writeError(response, decision.errorStatus());
+            return;
+        }
+
+        faultMetrics.getInjectedDelay(target).record(decision.delayNanos(), TimeUnit.NANOSECONDS);
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(TimeUnit.NANOSECONDS.toMillis(decision.delayNanos()) + ASYNC_TIMEOUT_MARGIN_MS);
+        faultMetrics.getDelayedRequests().incrementAndGet();
+        scheduler.schedule(() -> {
+            faultMetrics.getDelayedRequests().decrementAndGet();
+            if (!decision.isError()) {
+                // Повторная передача запроса; этот фильтр асинхронную передачу пропускает
+                async.dispatch();
+                return;
+            }
+            async.start(() -> {
+                try {
+                    writeError((HttpServletResponse) async.getResponse(), decision.errorStatus());
+                } catch (IOException e) {
+                    logger.debug("Не удалось отправить ответ с внедрённой ошибкой", e);
+                } finally {
+                    async.complete();
+                }
+            });
+        }, decision.delayNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private static Optional<FaultInjectionService.Target> target(HttpServletRequest request) {
+        return FaultInjectionService.Target.forPath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    private static void writeError(HttpServletResponse response, int status) throws IOException {
+        response.setStatus(status);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("❌ Ошибка: Внедрённый сбой, код ответа " + status);
+    }
+}
@@ -0,0 +1,254 @@
+package com.bankapp.controller;
+
+import com.bankapp.metrics.Instrumented;
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import com.bankapp.repository.ClientRepository;
+import com.bankapp.service.AuthUnavailableException;
+import com.bankapp.service.ReactiveAuthService;
+import com.bankapp.service.RecipientSelectionStore;
+import com.bankapp.service.TransferEngine;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Реактивный вариант API переводов: те же операции, что и в {@link TransactionController},
+ * но обращения к authmock выполняются через WebClient без блокировки потока.
+ * <p>
+ * Приложение остаётся на Spring MVC: метод возвращает Mono, поток Tomcat освобождается
+ * на время ожидания authmock (асинхронная обработка запроса), а продолжение выполняется
+ * в потоке reactor-netty. Поэтому количество потоков не растёт вместе с числом одновременных
+ * запросов, и оба варианта можно сравнивать под одной нагрузкой. Сам перевод берёт блокировки
+ * счетов и может ждать места в буфере журнала, поэтому выполняется в ограниченном пуле
+ * {@link Schedulers#boundedElastic()}; ожидание журнала при уровне SYNC неблокирующее.
+ */
+@RestController
+@RequestMapping("/reactive/transactions")
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveTransactionController {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final ReactiveAuthService authService;
+    private final ClientRepository clientRepository;
+    private final TransferEngine transferEngine;
+    private final RecipientSelectionStore selectionStore;
+
+    public ReactiveTransactionController(ReactiveAuthService authService, ClientRepository clientRepository,
+                                         TransferEngine transferEngine, RecipientSelectionStore selectionStore) {
+        this.authService = authService;
+        this.clientRepository = clientRepository;
+        this.transferEngine = transferEngine;
+        this.selectionStore = selectionStore;
+    }
+
+    // 1️⃣ Получить страницу клиентов
+    @Operation(
+            summary = "Получение списка клиентов (реактивный вариант)",
+            description = "Возвращает одну страницу клиентов в неизменном порядке хранилища (по id клиента " +
+                    "при storage.mode=objects, по порядку создания при storage.mode=columnar). " +
+                    "Курсор следующей страницы передаётся в заголовке X-Next-Cursor",
+            parameters = {
+                    @Parameter(
+                            name = "cursor",
+                            description = "Курсор страницы: id последнего клиента предыдущей страницы",
+                            example = "152554f1-cbf8-4ef5-b409-2d886cc2b0cd",
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Размер страницы (не более " + MAX_PAGE_SIZE + ")",
+                            example = "100",
+                            in = ParameterIn.QUERY)},
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Страница клиентов",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = Client.class)))})
+    @GetMapping("/clients")
+    @Instrumented(value = "bankapp.reactive.transaction.clients", description = "получение страницы клиентов (реактивно)")
+    public Mono<ResponseEntity<List<Client>>> getClients(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
+        return Mono.fromSupplier(() -> {
+            int pageSize = Math.max(1, Math.min(limit == null ? DEFAULT_PAGE_SIZE : limit, MAX_PAGE_SIZE));
+            List<Client> page = clientRepository.findPage(cursor, pageSize);
+            if (page.size() < pageSize) {
+                return ResponseEntity.ok(page);
+            }
+            return ResponseEntity.ok()
+                    .header(NEXT_CURSOR_HEADER, page.get(page.size() - 1).getId())
+                    .body(page);
+        });
+    }
+
+    // 2️⃣ Выбрать получателя перевода по логину и номеру счета
+    @Operation(
+            summary = "Выбор получателя перевода (реактивный вариант)",
+            description = "Выбирает получателя перевода по логину клиента и номеру счёта с проверкой авторизации",
+            parameters = {
+                    @Parameter(
+                            name = "username",
+                            description = "Логин получателя",
+                            required = true,
+                            example = "user1",
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "accountNumber",
+                            description = "Номер счёта получателя",
+                            required = true,
+                            example = "4081000000000001",
+                            in = ParameterIn.QUERY)},
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Получатель успешно выбран",
+                            content = @Content(
+                                    schema = @Schema(implementation = String.class),
+                                    examples = {@ExampleObject("✅ Получатель выбран: Danille Prosacco (Счет: 4081000000000001)")})),
+                    @ApiResponse(responseCode = "400", description = "Ошибка валидации данных"),
+                    @ApiResponse(responseCode = "401", description = "Пользователь не авторизован"),
+                    @ApiResponse(responseCode = "500", description = "Ошибка сервера при проверке авторизации"),
+                    @ApiResponse(responseCode = "503", description = "Сервис авторизации недоступен")})
+    @PostMapping("/select-recipient")
+    @Instrumented(value = "bankapp.reactive.transaction.select_recipient",
+            description = "выбор получателя перевода (реактивно)")
+    public Mono<ResponseEntity<String>> selectRecipient(@RequestParam String username,
+                                                        @RequestParam String accountNumber) {
+        return authorized(() -> {
+            Optional<Client> recipientOpt = clientRepository.findByUsername(username);
+            if (recipientOpt.isEmpty()) {
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("❌ Ошибка: Получатель не найден!"));
+            }
+
+            Optional<Account> recipientAccountOpt = clientRepository.findByAccountNumber(accountNumber)
+                    .filter(owner -> owner.getId().equals(recipientOpt.get().getId()))
+                    .flatMap(owner -> owner.getAccounts().stream()
+                            .filter(a -> a.getAccountNumber().equals(accountNumber))
+                            .findFirst());
+            if (recipientAccountOpt.isEmpty()) {
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("❌ Ошибка: У получателя нет такого счета!"));
+            }
+
+            Client recipientClient = recipientOpt.get();
+            Account recipientAccount = recipientAccountOpt.get();
+            return authService.loggedUser().map(user -> {
+                selectionStore.select(user, recipientClient, recipientAccount);
+                return ResponseEntity.ok("✅ Получатель выбран: " + recipientClient.getFullName() +
+                        " (Счет: " + recipientAccount.getAccountNumber() + ")");
+            });
+        });
+    }
+
+    // 3️⃣ Выполнить перевод выбранному получателю
+    @Operation(
+            summary = "Перевод средств (реактивный вариант)",
+            description = "Выполняет перевод указанной суммы на выбранный счет. Проверяет авторизацию, " +
+                    "наличие получателя и достаточность средств.",
+            parameters = {
+                    @Parameter(
+                            name = "amount",
+                            description = "Сумма перевода в рублях",
+                            required = true,
+                            example = "1000.5",
+                            in = ParameterIn.QUERY)},
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Перевод успешно выполнен",
+                            content = @Content(
+                                    schema = @Schema(implementation = String.class),
+                                    examples = {@ExampleObject("✅ Перевод завершен! 1000.5₽ переведено на счет 4081000000000001")})),
+                    @ApiResponse(responseCode = "400", description = "Ошибка валидации данных"),
+                    @ApiResponse(responseCode = "401", description = "Пользователь не авторизован"),
+                    @ApiResponse(responseCode = "404", description = "Получатель не выбран"),
+                    @ApiResponse(responseCode = "500", description = "Ошибка сервера при проверке авторизации"),
+                    @ApiResponse(responseCode = "503", description = "Сервис авторизации недоступен")})
+    @PostMapping("/transfer")
+    @Instrumented(value = "bankapp.reactive.transaction.transfer", description = "перевод средств (реактивно)",
+            inFlight = "bankapp.reactive.transaction.current_transfers")
+    public Mono<ResponseEntity<String>> transfer(@RequestParam double amount) {
+        return authorized(() -> authService.loggedUser().flatMap(username -> {
+            Optional<RecipientSelectionStore.Selection> selection = selectionStore.find(username);
+            if (selection.isEmpty()) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("❌ Ошибка: Сначала выберите получателя!"));
+            }
+            // Межузловые переводы выполняет только /transactions/transfer
+            if (selection.get().remote()) {
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("❌ Ошибка: Получатель на другом узле кластера, используйте /transactions/transfer!"));
+            }
+            Account recipientAccount = selection.get().account();
+
+            Client sender = clientRepository.findByUsername(username)
+                    .orElseThrow(() -> new RuntimeException("Клиент не найден"));
+
+            Optional<Account> senderAccountOpt = sender.getAccounts().stream().findFirst();
+            if (senderAccountOpt.isEmpty()) {
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("❌ Ошибка: У вас нет счета!"));
+            }
+
+            if (!(amount > 0) || Double.isInfinite(amount)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("❌ Ошибка: Сумма перевода должна быть положительной!"));
+            }
+            if (amount > Account.MAX_AMOUNT) {
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("❌ Ошибка: Сумма перевода слишком большая!"));
+            }
+
+            // Блокировки счетов и запись в журнал могут ждать, поэтому не занимают поток reactor-netty
+            return Mono.fromCallable(() -> transferEngine.transferAsync(senderAccountOpt.get(), recipientAccount,
+                            Account.toKopecks(amount)))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(Mono::fromFuture)
+                    .map(status -> switch (status) {
+                        case INVALID_AMOUNT -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                .body("❌ Ошибка: Сумма перевода должна быть положительной!");
+                        case INSUFFICIENT_FUNDS -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                .body("❌ Ошибка: Недостаточно средств на счете!");
+                        case OK -> ResponseEntity.ok("✅ Перевод завершен! " + amount + "₽ переведено на счет " +
+                                recipientAccount.getAccountNumber());
+                    });
+        }));
+    }
+
+    // Проверка авторизации перед действием; пустой ответ authmock - ошибка сервера, как в MVC-варианте
+    private Mono<ResponseEntity<String>> authorized(Supplier<Mono<ResponseEntity<String>>> action) {
+        return authService.isLogged()
+                .flatMap(logged -> logged
+                        ? action.get()
+                        : Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body("❌ Ошибка: Сначала войдите в систему!")))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("❌ Ошибка: Не удалось получить статус авторизации пользователя.")));
+    }
+
+    // Сервис авторизации недоступен или вызов отклонён защитой от перегрузки
+    @ExceptionHandler(AuthUnavailableException.class)
+    public ResponseEntity<String> handleAuthUnavailable(AuthUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("❌ Ошибка: Сервис авторизации недоступен, повторите попытку позже.");
+    }
+}
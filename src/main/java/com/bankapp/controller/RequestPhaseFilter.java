@@ -0,0 +1,122 @@
+package com.bankapp.controller;
+
+import com.bankapp.metrics.RequestPhases;
+import com.bankapp.service.PhaseMetricsService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Трасса фаз для выбора получателя и перевода (см. {@link RequestPhases}).
+ * <p>
+ * Фильтр стоит раньше контроля допуска, пересылки и внедрения сбоев, поэтому время запроса
+ * включает их работу. При асинхронной обработке трасса хранится в атрибуте запроса и
+ * привязывается к потоку повторной передачи, а записывается по завершении асинхронной обработки.
+ */
+@Component
+@Order(RequestPhaseFilter.ORDER)
+@ConditionalOnProperty(name = "phases.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestPhaseFilter extends OncePerRequestFilter {
+
+    // Раньше AdmissionControlFilter
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 20;
+
+    private static final String TRACE_ATTRIBUTE = RequestPhaseFilter.class.getName() + ".trace";
+    private static final Map<String, String> OPERATIONS = Map.of(
+            "/transactions/transfer", "transfer",
+            "/transactions/select-recipient", "select_recipient");
+
+    private final PhaseMetricsService phaseMetrics;
+
+    public RequestPhaseFilter(PhaseMetricsService phaseMetrics) {
+        this.phaseMetrics = phaseMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !OPERATIONS.containsKey(path(request));
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestPhases.Trace trace;
+        if (isAsyncDispatch(request)) {
+            trace = (RequestPhases.Trace) request.getAttribute(TRACE_ATTRIBUTE);
+            if (trace == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            RequestPhases.attach(trace);
+        } else {
+            trace = RequestPhases.start(OPERATIONS.get(path(request)));
+            request.setAttribute(TRACE_ATTRIBUTE, trace);
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestPhases.detach();
+            if (!request.isAsyncStarted()) {
+                finish(trace, request, response);
+            } else if (!isAsyncDispatch(request)) {
+                request.getAsyncContext().addListener(new TraceListener(trace), request, response);
+            }
+        }
+    }
+
+    private void finish(RequestPhases.Trace trace, HttpServletRequest request, HttpServletResponse response) {
+        if (trace.finish()) {
+            phaseMetrics.record(trace, request.getMethod(), request.getRequestURI(), response.getStatus());
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // Запись трассы по завершении асинхронной обработки, в том числе без повторной передачи запроса
+    private final class TraceListener implements AsyncListener {
+        private final RequestPhases.Trace trace;
+
+        private TraceListener(RequestPhases.Trace trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(trace, (HttpServletRequest) event.getSuppliedRequest(),
+                    (HttpServletResponse) event.getSuppliedResponse());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Повторный startAsync заменяет слушателей: регистрируемся заново
+            event.getAsyncContext().addListener(this, event.getSuppliedRequest(), event.getSuppliedResponse());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.bankapp.controller;
+
+import com.bankapp.service.PhaseMetricsService;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Последние медленные запросы перевода и выбора получателя с разбивкой по фазам:
+ * GET /actuator/slowrequests[?limit=N] - от самых долгих, DELETE - очистить кольцо.
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private final PhaseMetricsService phaseMetrics;
+
+    public SlowRequestsEndpoint(PhaseMetricsService phaseMetrics) {
+        this.phaseMetrics = phaseMetrics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowRequests(@Nullable Integer limit) {
+        List<PhaseMetricsService.SlowRequest> requests = phaseMetrics.getSlowRequests();
+        if (limit != null && limit >= 0 && limit < requests.size()) {
+            requests = requests.subList(0, limit);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("thresholdMs", phaseMetrics.getThresholdMs());
+        result.put("requests", requests);
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        phaseMetrics.clearSlowRequests();
+    }
+}
@@ -0,0 +1,45 @@
+package com.bankapp.controller;
+
+import com.bankapp.service.SnapshotService;
+import com.bankapp.service.SnapshotStore;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Снимки клиентов и счетов: GET /actuator/snapshot - состояние, POST - создать снимок
+@Component
+@Endpoint(id = "snapshot")
+public class SnapshotEndpoint {
+
+    private final SnapshotService snapshotService;
+
+    public SnapshotEndpoint(SnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("inProgress", snapshotService.isInProgress());
+        status.put("last", snapshotService.getLastSnapshot().orElse(null));
+        return status;
+    }
+
+    @WriteOperation
+    public Map<String, Object> create() throws IOException {
+        Optional<SnapshotStore.Info> snapshot = snapshotService.createSnapshot();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("created", snapshot.isPresent());
+        result.put("snapshot", snapshot.orElse(null));
+        if (snapshot.isEmpty()) {
+            result.put("message", "Снимок уже создаётся");
+        }
+        return result;
+    }
+}
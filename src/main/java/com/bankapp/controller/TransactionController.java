@@ -1,56 +1,193 @@
 package com.bankapp.controller;
 
+import com.bankapp.metrics.Instrumented;
+import com.bankapp.metrics.RequestPhases;
 import com.bankapp.model.Account;
+import com.bankapp.model.BatchTransferItem;
+import com.bankapp.model.BatchTransferResult;
 import com.bankapp.model.Client;
 import com.bankapp.repository.ClientRepository;
+import com.bankapp.service.AuthService;
+import com.bankapp.service.AuthUnavailableException;
+import com.bankapp.service.BatchTransferService;
+import com.bankapp.service.ClientListCache;
+import com.bankapp.service.ClusterService;
+import com.bankapp.service.ClusterTransferService;
+import com.bankapp.service.ClusterUnavailableException;
+import com.bankapp.service.IdempotencyStore;
+import com.bankapp.service.RecipientSelectionStore;
 import com.bankapp.service.TransactionMetricsService;
+import com.bankapp.service.TransferEngine;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/transactions")
 public class TransactionController {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final TransactionMetricsService transactionMetrics;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_FLUSH_EVERY = 256;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final Set<String> CLIENT_FIELDS =
+            Set.of("id", "fullName", "phone", "username", "password", "accounts");
 
-    private Client recipientClient;
-    private Account recipientAccount;
+    private final AuthService authService;
+    private final TransactionMetricsService transactionMetrics;
+    private final ClientRepository clientRepository;
+    private final TransferEngine transferEngine;
+    private final RecipientSelectionStore selectionStore;
+    private final BatchTransferService batchTransferService;
+    private final IdempotencyStore idempotencyStore;
+    private final ClientListCache clientListCache;
+    private final ClusterService cluster;
+    private final ClusterTransferService clusterTransfers;
+    private final int batchMaxItems;
+    private final ObjectMapper objectMapper;
 
-    public TransactionController(TransactionMetricsService transactionMetrics) {
+    public TransactionController(AuthService authService, TransactionMetricsService transactionMetrics,
+                                 ClientRepository clientRepository, TransferEngine transferEngine,
+                                 RecipientSelectionStore selectionStore, BatchTransferService batchTransferService,
+                                 IdempotencyStore idempotencyStore, ClientListCache clientListCache,
+                                 ClusterService cluster, ClusterTransferService clusterTransfers,
+                                 @Value("${transaction.batch.max-items:10000}") int batchMaxItems,
+                                 ObjectMapper objectMapper) {
+        this.authService = authService;
         this.transactionMetrics = transactionMetrics;
+        this.clientRepository = clientRepository;
+        this.transferEngine = transferEngine;
+        this.selectionStore = selectionStore;
+        this.batchTransferService = batchTransferService;
+        this.idempotencyStore = idempotencyStore;
+        this.clientListCache = clientListCache;
+        this.cluster = cluster;
+        this.clusterTransfers = clusterTransfers;
+        this.batchMaxItems = batchMaxItems;
+        this.objectMapper = objectMapper;
     }
 
     // 1️⃣ Получить список всех клиентов перед переводом
     @Operation(
             summary = "Получение списка всех клиентов",
-            description = "Получает список всех зарегистрированных клиентов для выбора получателя перевода",
+            description = "Получает список всех зарегистрированных клиентов для выбора получателя перевода. " +
+                    "Если указан limit или cursor, возвращается одна страница в неизменном порядке хранилища " +
+                    "(по id клиента при storage.mode=objects, по порядку создания при storage.mode=columnar), " +
+                    "а курсор следующей страницы передаётся в заголовке X-Next-Cursor. Полный список " +
+                    "возвращается с ETag; при совпадении If-None-Match ответ 304 без тела",
+            parameters = {
+                    @Parameter(
+                            name = "cursor",
+                            description = "Курсор страницы: id последнего клиента предыдущей страницы",
+                            required = false,
+                            example = "152554f1-cbf8-4ef5-b409-2d886cc2b0cd",
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = "limit",
+                            description = "Размер страницы (не более " + MAX_PAGE_SIZE + ")",
+                            required = false,
+                            example = "100",
+                            in = ParameterIn.QUERY)},
             responses = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Список клиентов успешно получен",
                             content = @Content(
                                     mediaType = "application/json",
-                                    schema = @Schema(implementation = Client.class)))})
+                                    schema = @Schema(implementation = Client.class))),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Список клиентов не изменился с версии из If-None-Match")})
     @GetMapping("/clients")
-    public ResponseEntity<List<Client>> getAllClients() {
-        return transactionMetrics.getGetAllClientsTimer().record(() -> {
-            transactionMetrics.getGetAllClientsCalls().increment();
-            List<Client> clients = List.copyOf(ClientRepository.getAllClients());
-            return ResponseEntity.ok(clients);
+    @Instrumented(value = "bankapp.transaction.clients.all", description = "получение списка клиентов")
+    public ResponseEntity<?> getAllClients(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer limit,
+                                           WebRequest request) {
+        if (cursor == null && limit == null) {
+            if (!clientListCache.isEnabled()) {
+                return ResponseEntity.ok(List.copyOf(clientRepository.getAllClients()));
+            }
+            // ETag зависит только от версии данных, поэтому 304 отдаётся без сборки списка
+            if (request.checkNotModified(clientListCache.currentEtag())) {
+                clientListCache.recordNotModified();
+                return null;
+            }
+            ClientListCache.Entry entry = clientListCache.get();
+            return ResponseEntity.ok()
+                    .eTag(entry.etag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(entry.json());
+        }
+
+        int pageSize = Math.max(1, Math.min(limit == null ? DEFAULT_PAGE_SIZE : limit, MAX_PAGE_SIZE));
+        List<Client> page = clientRepository.findPage(cursor, pageSize);
+        if (page.size() < pageSize) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, page.get(page.size() - 1).getId())
+                .body(page);
+    }
+
+    // Потоковая выгрузка клиентов в формате NDJSON
+    @Operation(
+            summary = "Потоковая выгрузка всех клиентов",
+            description = "Записывает клиентов в ответ по одному JSON-объекту на строку (NDJSON), " +
+                    "не собирая весь список в памяти. Параметр fields ограничивает набор полей",
+            parameters = {
+                    @Parameter(
+                            name = "fields",
+                            description = "Поля клиента через запятую: id, fullName, phone, username, password, accounts",
+                            required = false,
+                            example = "id,fullName,username",
+                            in = ParameterIn.QUERY)},
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Клиенты по одному на строку",
+                            content = @Content(mediaType = "application/x-ndjson")),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Указано неизвестное поле")})
+    @GetMapping(value = "/clients/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamClients(@RequestParam(required = false) Set<String> fields) {
+        transactionMetrics.getStreamClientsCalls().increment();
+
+        Set<String> projection = fields == null || fields.isEmpty() ? CLIENT_FIELDS : fields;
+        if (!CLIENT_FIELDS.containsAll(projection)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> transactionMetrics.getStreamClientsTimer().record(() -> {
+            try {
+                writeClients(out, projection);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         });
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     // 2️⃣ Выбрать получателя перевода по логину и номеру счета
@@ -95,44 +232,82 @@ public class TransactionController {
                             description = "Ошибка сервера при проверке авторизации",
                             content = @Content(
                                     schema = @Schema(implementation = String.class),
-                                    examples = {@ExampleObject("❌ Ошибка: Не удалось получить статус авторизации пользователя.")}))})
+                                    examples = {@ExampleObject("❌ Ошибка: Не удалось получить статус авторизации пользователя.")})),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Сервис авторизации недоступен",
+                            content = @Content(
+                                    schema = @Schema(implementation = String.class),
+                                    examples = {@ExampleObject("❌ Ошибка: Сервис авторизации недоступен, повторите попытку позже.")}))})
     @PostMapping("/select-recipient")
+    @Instrumented(value = "bankapp.transaction.select_recipient", description = "выбор получателя перевода")
     public ResponseEntity<String> selectRecipient(@RequestParam String username, @RequestParam String accountNumber) {
-        transactionMetrics.getSelectRecipientCalls().increment();
+        Boolean response = authService.isLogged();
+        if (response == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Ошибка: Не удалось получить статус авторизации пользователя.");
+        }
+        if (!response) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("❌ Ошибка: Сначала войдите в систему!");
+        }
 
-        return transactionMetrics.getSelectRecipientTimer().record(() -> {
-            Boolean response = restTemplate.getForEntity("http://localhost:8081/auth/isLogged", Boolean.class).getBody();
-            if (response == null) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("❌ Ошибка: Не удалось получить статус авторизации пользователя.");
-            }
-            if (!response) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body("❌ Ошибка: Сначала войдите в систему!");
-            }
+        // Выбор сохраняется для авторизованного пользователя, а не общим для всех
+        String loggedUser = authService.loggedUser();
+        if (loggedUser == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Ошибка: Не удалось получить имя пользователя.");
+        }
 
-            Optional<Client> recipientOpt = ClientRepository.findByUsername(username);
-            if (recipientOpt.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body("❌ Ошибка: Получатель не найден!");
-            }
+        if (!cluster.isLocal(username)) {
+            return selectRemoteRecipient(loggedUser, username, accountNumber);
+        }
 
-            Optional<Account> recipientAccountOpt = recipientOpt.get().getAccounts()
-                    .stream()
-                    .filter(a -> a.getAccountNumber().equals(accountNumber))
-                    .findFirst();
+        Optional<Client> recipientOpt = RequestPhases.time(RequestPhases.LOOKUP,
+                () -> clientRepository.findByUsername(username));
+        if (recipientOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Получатель не найден!");
+        }
 
-            if (recipientAccountOpt.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body("❌ Ошибка: У получателя нет такого счета!");
-            }
+        Optional<Account> recipientAccountOpt = RequestPhases.time(RequestPhases.LOOKUP,
+                () -> clientRepository.findByAccountNumber(accountNumber)
+                        .filter(owner -> owner.getId().equals(recipientOpt.get().getId()))
+                        .flatMap(owner -> owner.getAccounts().stream()
+                                .filter(a -> a.getAccountNumber().equals(accountNumber))
+                                .findFirst()));
 
-            this.recipientClient = recipientOpt.get();
-            this.recipientAccount = recipientAccountOpt.get();
+        if (recipientAccountOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: У получателя нет такого счета!");
+        }
 
-            return ResponseEntity.ok("✅ Получатель выбран: " + recipientClient.getFullName() +
-                    " (Счет: " + recipientAccount.getAccountNumber() + ")");
-        });
+        Client recipientClient = recipientOpt.get();
+        Account recipientAccount = recipientAccountOpt.get();
+        selectionStore.select(loggedUser, recipientClient, recipientAccount);
+
+        return ResponseEntity.ok("✅ Получатель выбран: " + recipientClient.getFullName() +
+                " (Счет: " + recipientAccount.getAccountNumber() + ")");
+    }
+
+    // Получатель хранится на другом узле кластера: проверяем его там и запоминаем данные для перевода
+    private ResponseEntity<String> selectRemoteRecipient(String loggedUser, String username, String accountNumber) {
+        Optional<ClusterTransferService.Recipient> recipientOpt =
+                clusterTransfers.findRecipient(username, accountNumber);
+        if (recipientOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Получатель не найден!");
+        }
+        ClusterTransferService.Recipient recipient = recipientOpt.get();
+        if (recipient.accountId() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: У получателя нет такого счета!");
+        }
+
+        selectionStore.selectRemote(loggedUser,
+                new Client(recipient.clientId(), recipient.fullName(), null, username, null),
+                new Account(recipient.accountId(), accountNumber, null, 0));
+        return ResponseEntity.ok("✅ Получатель выбран: " + recipient.fullName() + " (Счет: " + accountNumber + ")");
     }
 
     // 3️⃣ Выполнить перевод (указать сумму и изменить баланс)
@@ -146,7 +321,13 @@ public class TransactionController {
                             description = "Сумма перевода в рублях",
                             required = true,
                             example = "1000.5",
-                            in = ParameterIn.QUERY)},
+                            in = ParameterIn.QUERY),
+                    @Parameter(
+                            name = IdempotencyStore.HEADER,
+                            description = "Ключ идемпотентности: повтор запроса с тем же ключом возвращает " +
+                                    "исходный ответ без повторного перевода (заголовок Idempotent-Replayed: true)",
+                            example = "8f14e45f-ceea-467f-a0e6-3b1c7a2d9e10",
+                            in = ParameterIn.HEADER)},
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -160,7 +341,8 @@ public class TransactionController {
                             content = @Content(
                                     schema = @Schema(implementation = String.class),
                                     examples = {@ExampleObject("❌ Ошибка: У вас нет счета!"),
-                                                @ExampleObject("❌ Ошибка: Недостаточно средств на счете!")})),
+                                                @ExampleObject("❌ Ошибка: Недостаточно средств на счете!"),
+                                                @ExampleObject("❌ Ошибка: Сумма перевода должна быть положительной!")})),
                     @ApiResponse(
                             responseCode = "401",
                             description = "Пользователь не авторизован",
@@ -173,61 +355,222 @@ public class TransactionController {
                             content = @Content(
                                     schema = @Schema(implementation = String.class),
                                     examples = {@ExampleObject("❌ Ошибка: Сначала выберите получателя!")})),
+                    @ApiResponse(
+                            responseCode = "422",
+                            description = "Ключ идемпотентности уже использован с другой суммой или другим получателем",
+                            content = @Content(
+                                    schema = @Schema(implementation = String.class),
+                                    examples = {@ExampleObject("❌ Ошибка: Ключ идемпотентности уже использован с другими параметрами!")})),
                     @ApiResponse(
                             responseCode = "500",
                             description = "Ошибка сервера при проверке авторизации",
                             content = @Content(
                                     schema = @Schema(implementation = String.class),
-                                    examples = {@ExampleObject("❌ Ошибка: Не удалось получить статус авторизации пользователя.")}))})
+                                    examples = {@ExampleObject("❌ Ошибка: Не удалось получить статус авторизации пользователя.")})),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Сервис авторизации недоступен",
+                            content = @Content(
+                                    schema = @Schema(implementation = String.class),
+                                    examples = {@ExampleObject("❌ Ошибка: Сервис авторизации недоступен, повторите попытку позже.")}))})
     @PostMapping("/transfer")
-    public ResponseEntity<String> transfer(@RequestParam double amount) {
-        transactionMetrics.getTransferCalls().increment();
-        transactionMetrics.incrementTransfers();
+    @Instrumented(value = "bankapp.transaction.transfer", description = "перевод средств",
+            inFlight = "bankapp.transaction.current_transfers")
+    public ResponseEntity<String> transfer(@RequestParam double amount,
+                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false)
+                                           String idempotencyKey) {
+        Boolean response = authService.isLogged();
+        if (response == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Ошибка: Не удалось получить статус авторизации пользователя.");
+        }
+        if (!response) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("❌ Ошибка: Сначала войдите в систему!");
+        }
 
-        return transactionMetrics.getTransferTimer().record(() -> {
-            try {
-                Boolean response = restTemplate.getForEntity("http://localhost:8081/auth/isLogged", Boolean.class).getBody();
-                if (response == null) {
-                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                            .body("❌ Ошибка: Не удалось получить статус авторизации пользователя.");
-                }
-                if (!response) {
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                            .body("❌ Ошибка: Сначала войдите в систему!");
-                }
+        String username = authService.loggedUser();
+        if (username == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Ошибка: Не удалось получить имя пользователя.");
+        }
+        Optional<RecipientSelectionStore.Selection> selection =
+                RequestPhases.time(RequestPhases.LOOKUP, () -> selectionStore.find(username));
+        if (idempotencyKey == null) {
+            return executeTransfer(username, selection, amount);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Ключ идемпотентности должен содержать от 1 до " +
+                            IdempotencyStore.MAX_KEY_LENGTH + " символов!");
+        }
+        // Получатель берётся из выбора пользователя, поэтому входит в параметры запроса наравне с суммой.
+        // Ошибки авторизации выше не сохраняются: повтор после них выполнит перевод
+        String fingerprint = amount + ":" + selection.map(s -> s.account().getAccountNumber()).orElse("");
+        return idempotencyStore.execute(username, idempotencyKey, fingerprint,
+                () -> executeTransfer(username, selection, amount));
+    }
 
-                if (recipientClient == null || recipientAccount == null) {
-                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                            .body("❌ Ошибка: Сначала выберите получателя!");
-                }
+    // Перевод выбранному получателю от имени авторизованного пользователя
+    private ResponseEntity<String> executeTransfer(String username,
+                                                   Optional<RecipientSelectionStore.Selection> selection,
+                                                   double amount) {
+        if (selection.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("❌ Ошибка: Сначала выберите получателя!");
+        }
+        Account recipientAccount = selection.get().account();
 
-                String username = restTemplate.getForEntity("http://localhost:8081/auth/loggedUser", String.class).getBody();
-                Client sender = ClientRepository.findByUsername(username)
-                        .orElseThrow(() -> new RuntimeException("Клиент не найден"));
+        Client sender = RequestPhases.time(RequestPhases.LOOKUP, () -> clientRepository.findByUsername(username))
+                .orElseThrow(() -> new RuntimeException("Клиент не найден"));
 
-                Optional<Account> senderAccountOpt = sender.getAccounts().stream().findFirst();
-                if (senderAccountOpt.isEmpty()) {
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                            .body("❌ Ошибка: У вас нет счета!");
-                }
+        Optional<Account> senderAccountOpt = sender.getAccounts().stream().findFirst();
+        if (senderAccountOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: У вас нет счета!");
+        }
 
-                Account senderAccount = senderAccountOpt.get();
-                if (senderAccount.getBalance() < amount) {
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                            .body("❌ Ошибка: Недостаточно средств на счете!");
-                }
+        if (!(amount > 0) || Double.isInfinite(amount)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Сумма перевода должна быть положительной!");
+        }
+        if (amount > Account.MAX_AMOUNT) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Сумма перевода слишком большая!");
+        }
+
+        // Атомарно обновляем балансы
+        Account senderAccount = senderAccountOpt.get();
+        if (selection.get().remote()) {
+            return executeRemoteTransfer(senderAccount, recipientAccount, amount);
+        }
+        TransferEngine.Status status = transferEngine.transfer(senderAccount, recipientAccount,
+                Account.toKopecks(amount));
+        if (status == TransferEngine.Status.INVALID_AMOUNT) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Сумма перевода должна быть положительной!");
+        }
+        if (status == TransferEngine.Status.INSUFFICIENT_FUNDS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Недостаточно средств на счете!");
+        }
+
+        return ResponseEntity.ok("✅ Перевод завершен! " + amount + "₽ переведено на счет " +
+                recipientAccount.getAccountNumber());
+    }
+
+    // Перевод на счет другого узла кластера в две фазы
+    private ResponseEntity<String> executeRemoteTransfer(Account senderAccount, Account recipientAccount, double amount) {
+        ClusterTransferService.Result result = clusterTransfers.transfer(senderAccount,
+                recipientAccount.getAccountNumber(), Account.toKopecks(amount));
+        return switch (result) {
+            case OK -> ResponseEntity.ok("✅ Перевод завершен! " + amount + "₽ переведено на счет " +
+                    recipientAccount.getAccountNumber());
+            case INSUFFICIENT_FUNDS -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Недостаточно средств на счете!");
+            case RECIPIENT_NOT_FOUND -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: У получателя нет такого счета!");
+            case REFUNDED -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("❌ Ошибка: Перевод не выполнен, средства возвращены на счет. Повторите попытку позже.");
+            case IN_DOUBT -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body("⏳ Средства списаны, зачисление получателю ожидает подтверждения узлом кластера.");
+        };
+    }
+
+    // 4️⃣ Выполнить пакет переводов между указанными счетами
+    @Operation(
+            summary = "Пакетный перевод средств",
+            description = "Выполняет список переводов со счетов авторизованного пользователя за один запрос " +
+                    "с одной проверкой авторизации. Операции с чужим счетом отправителя отклоняются. " +
+                    "Переводы по непересекающимся счетам выполняются параллельно, порядок операций " +
+                    "по каждому счету сохраняется. Для каждой операции возвращается свой результат.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Пакет обработан, результат по каждой операции",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = BatchTransferResult.class)))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Превышен допустимый размер пакета или в пакете есть пустые операции"),
+                    @ApiResponse(
+                            responseCode = "401",
+                            description = "Пользователь не авторизован"),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Сервис авторизации недоступен")})
+    @PostMapping("/transfer/batch")
+    @Instrumented(value = "bankapp.transaction.transfer.batch", description = "пакетный перевод средств")
+    public ResponseEntity<?> transferBatch(@RequestBody List<BatchTransferItem> items) {
+        if (items.size() > batchMaxItems) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: В пакете не более " + batchMaxItems + " операций!");
+        }
+        if (items.contains(null)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("❌ Ошибка: Пакет не должен содержать пустых операций!");
+        }
 
-                // Обновляем балансы
-                senderAccount.setBalance(senderAccount.getBalance() - amount);
-                recipientAccount.setBalance(recipientAccount.getBalance() + amount);
+        Boolean response = authService.isLogged();
+        if (response == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Ошибка: Не удалось получить статус авторизации пользователя.");
+        }
+        if (!response) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body("❌ Ошибка: Сначала войдите в систему!");
+        }
 
-                transactionMetrics.decrementTransfers();
+        String username = authService.loggedUser();
+        if (username == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("❌ Ошибка: Не удалось получить имя пользователя.");
+        }
 
-                return ResponseEntity.ok("✅ Перевод завершен! " + amount + "₽ переведено на счет " +
-                        recipientAccount.getAccountNumber());
-            } finally {
-                transactionMetrics.decrementTransfers();
+        transactionMetrics.getTransferBatchSize().record(items.size());
+        List<BatchTransferResult> results = batchTransferService.execute(username, items);
+        transactionMetrics.getTransferBatchItems().increment(items.size());
+        return ResponseEntity.ok(results);
+    }
+
+    private void writeClients(OutputStream out, Set<String> fields) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            int written = 0;
+            for (Client client : clientRepository.getAllClients()) {
+                generator.writeStartObject();
+                if (fields.contains("id")) generator.writeStringField("id", client.getId());
+                if (fields.contains("fullName")) generator.writeStringField("fullName", client.getFullName());
+                if (fields.contains("phone")) generator.writeStringField("phone", client.getPhone());
+                if (fields.contains("username")) generator.writeStringField("username", client.getUsername());
+                if (fields.contains("password")) generator.writeStringField("password", client.getPassword());
+                if (fields.contains("accounts")) {
+                    generator.writeFieldName("accounts");
+                    generator.writeObject(client.getAccounts());
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+
+                // Периодически отдаём накопленное, не дожидаясь конца выгрузки
+                if (++written % STREAM_FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
             }
-        });
+        }
+    }
+
+    // Узел кластера, хранящий получателя, недоступен; средства при этом не списаны
+    @ExceptionHandler(ClusterUnavailableException.class)
+    public ResponseEntity<String> handleClusterUnavailable(ClusterUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("❌ Ошибка: Узел кластера недоступен, повторите попытку позже.");
+    }
+
+    // Сервис авторизации недоступен или вызов отклонён защитой от перегрузки
+    @ExceptionHandler(AuthUnavailableException.class)
+    public ResponseEntity<String> handleAuthUnavailable(AuthUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("❌ Ошибка: Сервис авторизации недоступен, повторите попытку позже.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.bankapp.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Метрики вызовов метода бина.
+ * <p>
+ * Для метода регистрируются счётчик вызовов {@code <value>.calls}, счётчик ошибок
+ * {@code <value>.errors} с тегом exception, таймер {@code <value>.duration} и Gauge текущего
+ * количества выполняющихся вызовов. Гистограмма для расчёта перцентилей в Prometheus и SLO-корзины
+ * включаются отдельно: каждая запись в таймер с гистограммой дороже записи в обычный таймер.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Instrumented {
+
+    // Префикс имён метрик, например bankapp.transaction.transfer
+    String value();
+
+    // Описание операции для метрик
+    String description() default "";
+
+    // Имя Gauge выполняющихся вызовов; по умолчанию <value>.in_flight
+    String inFlight() default "";
+
+    // Публиковать гистограмму таймера для расчёта перцентилей (p95, p99) в Prometheus
+    boolean histogram() default false;
+
+    // Границы SLO для таймера, в миллисекундах; по умолчанию SLO-корзин нет
+    long[] slo() default {};
+}
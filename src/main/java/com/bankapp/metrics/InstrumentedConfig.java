@@ -0,0 +1,24 @@
+package com.bankapp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+// Подключение перехватчика @Instrumented ко всем бинам с аннотированными методами.
+// Без AspectJ Spring Boot применяет только инфраструктурные Advisor, отсюда роль бина
+@Configuration
+public class InstrumentedConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public Advisor instrumentedAdvisor(MeterRegistry registry) {
+        return new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Instrumented.class),
+                new InstrumentedInterceptor(registry));
+    }
+}
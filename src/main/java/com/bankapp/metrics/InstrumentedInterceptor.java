@@ -0,0 +1,168 @@
+package com.bankapp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Обработка {@link Instrumented}: метрики создаются один раз на метод и переиспользуются.
+ * <p>
+ * Без гистограммы вызов обновляет только три LongAdder: начатые, завершённые и суммарное
+ * время, которые публикуются через FunctionCounter и FunctionTimer. Количество выполняющихся
+ * вызовов вычисляется при чтении как разность начатых и завершённых, поэтому параллельные
+ * запросы не конкурируют за одну ячейку, как при обновлении общего ключа в ConcurrentHashMap.
+ * Таймер Micrometer создаётся только для гистограммы и SLO-корзин.
+ * Перехватчик подключается как обычный MethodInterceptor, без AspectJ-привязки аргументов,
+ * которая вычислялась бы на каждом вызове. Для методов, возвращающих Mono, вызов начинается
+ * при подписке на Mono и завершается вместе с ним. Возврат из обычного метода отмечается
+ * в трассе фаз {@link RequestPhases} тем же замером времени, что и для таймера.
+ */
+public class InstrumentedInterceptor implements MethodInterceptor {
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public InstrumentedInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        MethodMeters methodMeters = meters.get(method);
+        if (methodMeters == null) {
+            methodMeters = meters.computeIfAbsent(method, MethodMeters::new);
+        }
+        if (methodMeters.reactive) {
+            return invokeReactive(invocation, methodMeters);
+        }
+
+        methodMeters.calls.increment();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            methodMeters.error(e).increment();
+            RequestPhases.handlerFinished(methodMeters.complete(start));
+            throw e;
+        }
+        RequestPhases.handlerFinished(methodMeters.complete(start));
+        return result;
+    }
+
+    // Вызов начинается при подписке: Mono, на который так и не подписались, не остаётся в выполняющихся
+    private Object invokeReactive(MethodInvocation invocation, MethodMeters methodMeters) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            methodMeters.calls.increment();
+            methodMeters.error(e).increment();
+            RequestPhases.handlerFinished(methodMeters.complete(start));
+            throw e;
+        }
+        if (!(result instanceof Mono<?> mono)) {
+            methodMeters.calls.increment();
+            methodMeters.complete(start);
+            return result;
+        }
+        return Mono.defer(() -> {
+            methodMeters.calls.increment();
+            long subscribed = System.nanoTime();
+            return mono
+                    .doOnError(e -> methodMeters.error(e).increment())
+                    .doFinally(signal -> methodMeters.complete(subscribed));
+        });
+    }
+
+    private final class MethodMeters {
+        private final String prefix;
+        private final String description;
+        private final boolean reactive;
+        private final LongAdder calls = new LongAdder();
+        // Таймер с гистограммой или SLO-корзинами; без них время копится в completed и totalNanos
+        private final Timer duration;
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final ConcurrentMap<Class<?>, Counter> errors = new ConcurrentHashMap<>();
+
+        private MethodMeters(Method method) {
+            Instrumented instrumented = method.getAnnotation(Instrumented.class);
+            this.prefix = instrumented.value();
+            this.description = instrumented.description().isEmpty() ? prefix : instrumented.description();
+            this.reactive = Mono.class.isAssignableFrom(method.getReturnType());
+
+            FunctionCounter.builder(prefix + ".calls", calls, LongAdder::sum)
+                    .description("Количество вызовов: " + description)
+                    .register(registry);
+
+            if (instrumented.histogram() || instrumented.slo().length > 0) {
+                Timer.Builder timer = Timer.builder(prefix + ".duration")
+                        .description("Время выполнения: " + description)
+                        .serviceLevelObjectives(Arrays.stream(instrumented.slo())
+                                .mapToObj(Duration::ofMillis)
+                                .toArray(Duration[]::new));
+                if (instrumented.histogram()) {
+                    timer.publishPercentileHistogram()
+                            .minimumExpectedValue(Duration.ofMillis(1))
+                            .maximumExpectedValue(Duration.ofSeconds(30));
+                }
+                this.duration = timer.register(registry);
+            } else {
+                // Количество и сумма без скользящего максимума Timer, который читает часы на каждой записи
+                FunctionTimer.builder(prefix + ".duration", this,
+                                meters -> meters.completed.sum(), meters -> meters.totalNanos.sum(),
+                                TimeUnit.NANOSECONDS)
+                        .description("Время выполнения: " + description)
+                        .register(registry);
+                this.duration = null;
+            }
+
+            String inFlightName = instrumented.inFlight().isEmpty() ? prefix + ".in_flight" : instrumented.inFlight();
+            Gauge.builder(inFlightName, this, MethodMeters::inFlight)
+                    .description("Текущее количество выполняющихся вызовов: " + description)
+                    .register(registry);
+        }
+
+        // Возвращает момент завершения, чтобы не читать часы повторно
+        private long complete(long start) {
+            long end = System.nanoTime();
+            if (duration != null) {
+                duration.record(end - start, TimeUnit.NANOSECONDS);
+            } else {
+                totalNanos.add(end - start);
+                completed.increment();
+            }
+            return end;
+        }
+
+        // Завершённые читаются первыми: вызов, завершившийся между чтениями, уже учтён в начатых
+        private double inFlight() {
+            long finished = duration != null ? duration.count() : completed.sum();
+            return calls.sum() - finished;
+        }
+
+        private Counter error(Throwable e) {
+            return errors.computeIfAbsent(e.getClass(), type -> Counter.builder(prefix + ".errors")
+                    .description("Количество вызовов, завершившихся исключением: " + description)
+                    .tag("exception", type.getSimpleName())
+                    .register(registry));
+        }
+    }
+}
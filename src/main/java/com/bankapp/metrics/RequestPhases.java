@@ -0,0 +1,132 @@
+package com.bankapp.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Разбивка времени запроса по фазам: вызовы authmock, поиск в репозиториях, ожидание блокировок,
+ * изменение балансов, журнал, обращения к другим узлам кластера и формирование ответа.
+ * <p>
+ * Трасса запроса привязывается к потоку, который его обрабатывает. Код фаз записывает
+ * длительность, только если трасса есть, поэтому вне отслеживаемых запросов запись фазы -
+ * одно чтение ThreadLocal. Трасса используется одним потоком за раз: при асинхронной
+ * обработке её привязывает к потоку повторной передачи запроса тот же фильтр.
+ */
+public final class RequestPhases {
+
+    public static final String AUTH = "auth";
+    public static final String LOOKUP = "lookup";
+    public static final String LOCK_WAIT = "lock_wait";
+    public static final String BALANCE_UPDATE = "balance_update";
+    public static final String JOURNAL = "journal";
+    public static final String CLUSTER = "cluster";
+    // От возврата из обработчика до завершения запроса: преобразование и запись ответа
+    public static final String SERIALIZATION = "serialization";
+    // Остаток: фильтры, разбор параметров, логика обработчика и ожидание асинхронной передачи
+    public static final String OTHER = "other";
+
+    public static final List<String> PHASES =
+            List.of(AUTH, LOOKUP, LOCK_WAIT, BALANCE_UPDATE, JOURNAL, CLUSTER, SERIALIZATION, OTHER);
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private RequestPhases() {
+    }
+
+    public static final class Trace {
+        private final String operation;
+        private final long startNanos = System.nanoTime();
+        private final long startMillis = System.currentTimeMillis();
+        private final long[] nanos = new long[PHASES.size()];
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private long handlerEndNanos;
+
+        private Trace(String operation) {
+            this.operation = operation;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        // Завершение трассы; false, если она уже завершена
+        public boolean finish() {
+            return finished.compareAndSet(false, true);
+        }
+
+        /**
+         * Длительности фаз в наносекундах в порядке {@link #PHASES}, в сумме - общее время запроса.
+         */
+        public Map<String, Long> breakdown(long endNanos) {
+            long total = endNanos - startNanos;
+            long serialization = handlerEndNanos > 0 ? Math.max(0, endNanos - handlerEndNanos) : 0;
+            nanos[PHASES.indexOf(SERIALIZATION)] = serialization;
+
+            long recorded = 0;
+            for (long value : nanos) {
+                recorded += value;
+            }
+            nanos[PHASES.indexOf(OTHER)] = Math.max(0, total - recorded);
+
+            Map<String, Long> breakdown = new LinkedHashMap<>();
+            for (int i = 0; i < nanos.length; i++) {
+                breakdown.put(PHASES.get(i), nanos[i]);
+            }
+            return breakdown;
+        }
+
+        public long elapsed(long endNanos) {
+            return endNanos - startNanos;
+        }
+    }
+
+    // Новая трасса запроса, привязанная к текущему потоку
+    public static Trace start(String operation) {
+        Trace trace = new Trace(operation);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static void attach(Trace trace) {
+        CURRENT.set(trace);
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    // Добавляет длительность к фазе трассы текущего потока
+    public static void record(String phase, long nanos) {
+        Trace trace = CURRENT.get();
+        if (trace != null) {
+            trace.nanos[PHASES.indexOf(phase)] += nanos;
+        }
+    }
+
+    public static <T> T time(String phase, Supplier<T> call) {
+        if (CURRENT.get() == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    // Обработчик запроса вернул результат в момент endNanos; дальше идёт формирование ответа
+    public static void handlerFinished(long endNanos) {
+        Trace trace = CURRENT.get();
+        if (trace != null) {
+            trace.handlerEndNanos = endNanos;
+        }
+    }
+}
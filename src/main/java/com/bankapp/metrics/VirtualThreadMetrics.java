@@ -0,0 +1,67 @@
+package com.bankapp.metrics;
+
+import com.bankapp.util.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Метрики виртуальных потоков по событиям JFR, читаемым потоково внутри приложения.
+ * <p>
+ * bankapp.vthreads.pinned - случаи, когда виртуальный поток заблокировался, не отпустив несущий
+ * поток (synchronized, native-вызов), дольше virtual-threads.pinned-threshold-ms. Суммарное время
+ * таймера - время, на которое несущие потоки были заняты такими блокировками.
+ * bankapp.vthreads.submit_failed - виртуальные потоки, которые не удалось запустить или возобновить.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadMetrics implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadMetrics.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String SUBMIT_FAILED_EVENT = "jdk.VirtualThreadSubmitFailed";
+
+    private final RecordingStream stream;
+
+    public VirtualThreadMetrics(MeterRegistry registry,
+                                @Value("${virtual-threads.pinned-threshold-ms:20}") long pinnedThresholdMs) {
+        if (!VirtualThreads.isSupported()) {
+            log.warn("⚠️ spring.threads.virtual.enabled=true, но виртуальные потоки требуют Java 21: " +
+                    "запросы обрабатываются обычными потоками");
+            this.stream = null;
+            return;
+        }
+
+        Timer pinned = Timer.builder("bankapp.vthreads.pinned")
+                .description("Блокировки виртуальных потоков с удержанием несущего потока")
+                .register(registry);
+        Counter submitFailed = Counter.builder("bankapp.vthreads.submit_failed")
+                .description("Количество неудавшихся запусков и возобновлений виртуальных потоков")
+                .register(registry);
+
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(pinnedThresholdMs));
+        stream.enable(SUBMIT_FAILED_EVENT);
+        stream.onEvent(PINNED_EVENT, event -> pinned.record(event.getDuration()));
+        stream.onEvent(SUBMIT_FAILED_EVENT, event -> submitFailed.increment());
+        stream.startAsync();
+        log.info("📌 Виртуальные потоки включены, порог закрепления: {} мс", pinnedThresholdMs);
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
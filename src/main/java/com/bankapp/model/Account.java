@@ -1,6 +1,10 @@
 package com.bankapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.UUID;
 
 @Data
@@ -8,14 +12,26 @@ public class Account {
     private String id;
     private String accountNumber;
     private String cardNumber;
-    private double balance;
 
+    // Баланс хранится в копейках, чтобы не накапливать ошибку округления double
+    @JsonIgnore
+    private volatile long balanceKopecks;
+
+    // Прежняя генерация через UUID.randomUUID() без проверки уникальности; новые счета создаёт IdGenerator
     public Account() {
         this.id = UUID.randomUUID().toString();
         this.accountNumber = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
         this.cardNumber = UUID.randomUUID().toString().replace("-", "").substring(0, 16);
     }
 
+    // Восстановление сохранённого счета без генерации новых идентификаторов
+    public Account(String id, String accountNumber, String cardNumber, long balanceKopecks) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.cardNumber = cardNumber;
+        this.balanceKopecks = balanceKopecks;
+    }
+
     public String getId() {
         return id;
     }
@@ -29,10 +45,26 @@ public class Account {
     }
 
     public double getBalance() {
-        return balance;
+        return getBalanceKopecks() / 100.0;
     }
 
     public void setBalance(double balance) {
-        this.balance = balance;
+        setBalanceKopecks(toKopecks(balance));
+    }
+
+    public long getBalanceKopecks() {
+        return balanceKopecks;
+    }
+
+    public void setBalanceKopecks(long balanceKopecks) {
+        this.balanceKopecks = balanceKopecks;
+    }
+
+    // Наибольшая сумма операции в рублях: в копейках она с запасом помещается в long
+    public static final double MAX_AMOUNT = 1e15;
+
+    // Перевод суммы в рублях в копейки с округлением до ближайшей копейки; |amount| не больше MAX_AMOUNT
+    public static long toKopecks(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
     }
 }
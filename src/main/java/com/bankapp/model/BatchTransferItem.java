@@ -0,0 +1,15 @@
+package com.bankapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Одна операция пакетного перевода
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferItem {
+    private String senderAccount;
+    private String recipientAccount;
+    private double amount;
+}
@@ -0,0 +1,24 @@
+package com.bankapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Результат одной операции пакетного перевода
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResult {
+
+    public enum Status {
+        OK,
+        INVALID_AMOUNT,
+        INSUFFICIENT_FUNDS,
+        ACCOUNT_NOT_FOUND,
+        // Счет отправителя не принадлежит авторизованному пользователю
+        FORBIDDEN
+    }
+
+    private int index;
+    private Status status;
+}
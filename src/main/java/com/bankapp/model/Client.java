@@ -1,9 +1,9 @@
 package com.bankapp.model;
 
 import lombok.Data;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Data
 public class Client {
@@ -12,10 +12,15 @@ public class Client {
     private String phone;
     private String username;
     private String password;
-    private List<Account> accounts = new ArrayList<>();
+    private List<Account> accounts = new CopyOnWriteArrayList<>();
 
     public Client(String fullName, String phone, String username, String password) {
-        this.id = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), fullName, phone, username, password);
+    }
+
+    // Восстановление сохранённого клиента с известным id
+    public Client(String id, String fullName, String phone, String username, String password) {
+        this.id = id;
         this.fullName = fullName;
         this.phone = phone;
         this.username = username;
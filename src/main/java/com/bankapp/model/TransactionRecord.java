@@ -0,0 +1,25 @@
+package com.bankapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Запись истории операций по счету
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRecord {
+
+    public enum Direction {
+        DEBIT,
+        CREDIT
+    }
+
+    private Instant timestamp;
+    private Direction direction;
+    private double amount;
+    private String counterparty;
+    private double balanceAfter;
+}
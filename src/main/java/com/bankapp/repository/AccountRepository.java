@@ -1,25 +1,27 @@
 package com.bankapp.repository;
 
 import com.bankapp.model.Account;
-import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 
-@Repository
-public class AccountRepository {
-    private final Map<String, Account> accounts = new HashMap<>();
-
-    public Account save(Account account) {
-        accounts.put(account.getId(), account);
-        return account;
-    }
-
-    public Optional<Account> findByNumber(String number) {
-        return accounts.values()
-                .stream()
-                .filter(a -> a.getAccountNumber().equals(number))
-                .findFirst();
-    }
+/**
+ * Хранилище счетов. Реализация выбирается свойством storage.mode:
+ * objects - {@link ObjectAccountRepository}, columnar - {@link ColumnarAccountRepository}.
+ */
+public interface AccountRepository {
+
+    Account save(Account account);
+
+    Optional<Account> findByNumber(String number);
+
+    Optional<Account> findByCardNumber(String cardNumber);
+
+    // Пакетный поиск: найденные счета в порядке запроса, отсутствующие пропускаются
+    Map<String, Account> findAllByNumbers(Collection<String> numbers);
+
+    Collection<Account> findAll();
+
+    int count();
 }
@@ -1,27 +1,37 @@
 package com.bankapp.repository;
 
+import com.bankapp.model.Account;
 import com.bankapp.model.Client;
-import java.util.*;
-
-public class ClientRepository {
-    private static final Map<String, Client> clients = new HashMap<>();
-
-    public static Client save(Client client) {
-        clients.put(client.getId(), client);
-        return client;
-    }
-
-    public static Optional<Client> findByUsername(String username) {
-        return clients.values().stream()
-                .filter(c -> c.getUsername().equals(username))
-                .findFirst();
-    }
-
-    public static Optional<Client> findById(String id) {
-        return Optional.ofNullable(clients.get(id));
-    }
-
-    public static Collection<Client> getAllClients() {
-        return clients.values();
-    }
-}
\ No newline at end of file
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище клиентов. Реализация выбирается свойством storage.mode:
+ * objects - {@link ObjectClientRepository}, columnar - {@link ColumnarClientRepository}.
+ * <p>
+ * В режиме columnar возвращаемые объекты - представления, собранные при обращении:
+ * изменение их полей, кроме баланса счетов, не сохраняется, а сравнивать их нужно по id.
+ */
+public interface ClientRepository {
+
+    Client save(Client client);
+
+    // Добавление счета клиенту с обновлением индекса по номеру счета
+    Account addAccount(Client client, Account account);
+
+    Optional<Client> findByUsername(String username);
+
+    Optional<Client> findById(String id);
+
+    Optional<Client> findByAccountNumber(String accountNumber);
+
+    Collection<Client> getAllClients();
+
+    // Страница клиентов после курсора (id последнего клиента предыдущей страницы); null - начало списка.
+    // Порядок задаёт реализация и не меняется между страницами: по id или по порядку создания
+    List<Client> findPage(String afterId, int limit);
+
+    int count();
+}
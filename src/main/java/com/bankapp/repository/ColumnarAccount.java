@@ -0,0 +1,26 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.Account;
+
+// Представление счета из колоночного хранилища: баланс читается и пишется прямо в колонку
+final class ColumnarAccount extends Account {
+
+    private final ColumnarStore store;
+    private final int handle;
+
+    ColumnarAccount(ColumnarStore store, int handle, String id, String accountNumber, String cardNumber) {
+        super(id, accountNumber, cardNumber, 0);
+        this.store = store;
+        this.handle = handle;
+    }
+
+    @Override
+    public long getBalanceKopecks() {
+        return store.balance(handle);
+    }
+
+    @Override
+    public void setBalanceKopecks(long balanceKopecks) {
+        store.setBalance(handle, balanceKopecks);
+    }
+}
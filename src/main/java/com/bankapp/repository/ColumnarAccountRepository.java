@@ -0,0 +1,94 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.Account;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+// Счета в колоночном хранилище (режим storage.mode=columnar)
+@Repository
+@ConditionalOnProperty(name = "storage.mode", havingValue = "columnar")
+public class ColumnarAccountRepository implements AccountRepository {
+
+    private final ColumnarStore store;
+    private final DataVersion dataVersion;
+
+    public ColumnarAccountRepository(ColumnarStore store, DataVersion dataVersion) {
+        this.store = store;
+        this.dataVersion = dataVersion;
+    }
+
+    // Новый счет добавляется без владельца, у существующего обновляется баланс
+    @Override
+    public Account save(Account account) {
+        int handle = store.findAccountByNumber(account.getAccountNumber());
+        if (handle < 0) {
+            store.insertAccount(-1, account);
+        } else {
+            store.setBalance(handle, account.getBalanceKopecks());
+        }
+        dataVersion.increment();
+        return account;
+    }
+
+    @Override
+    public Optional<Account> findByNumber(String number) {
+        int handle = store.findAccountByNumber(number);
+        return handle < 0 ? Optional.empty() : Optional.of(store.account(handle));
+    }
+
+    @Override
+    public Optional<Account> findByCardNumber(String cardNumber) {
+        int handle = store.findAccountByCard(cardNumber);
+        return handle < 0 ? Optional.empty() : Optional.of(store.account(handle));
+    }
+
+    @Override
+    public Map<String, Account> findAllByNumbers(Collection<String> numbers) {
+        Map<String, Account> result = new LinkedHashMap<>();
+        for (String number : numbers) {
+            int handle = store.findAccountByNumber(number);
+            if (handle >= 0) {
+                result.put(number, store.account(handle));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Account> findAll() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Account> iterator() {
+                int end = store.accountCount();
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < end;
+                    }
+
+                    @Override
+                    public Account next() {
+                        if (next >= end) {
+                            throw new NoSuchElementException();
+                        }
+                        return store.account(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return store.accountCount();
+            }
+        };
+    }
+
+    @Override
+    public int count() {
+        return store.accountCount();
+    }
+}
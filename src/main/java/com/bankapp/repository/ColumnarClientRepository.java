@@ -0,0 +1,117 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+// Клиенты в колоночном хранилище (режим storage.mode=columnar); порядок обхода - порядок создания
+@Repository
+@ConditionalOnProperty(name = "storage.mode", havingValue = "columnar")
+public class ColumnarClientRepository implements ClientRepository {
+
+    private final ColumnarStore store;
+    private final DataVersion dataVersion;
+
+    public ColumnarClientRepository(ColumnarStore store, DataVersion dataVersion) {
+        this.store = store;
+        this.dataVersion = dataVersion;
+    }
+
+    // Клиенты не изменяются после создания, поэтому повторное сохранение только добавляет новые счета
+    @Override
+    public Client save(Client client) {
+        store.insertClient(client);
+        dataVersion.increment();
+        return client;
+    }
+
+    @Override
+    public Account addAccount(Client client, Account account) {
+        int owner = store.findClientById(client.getId());
+        if (owner < 0) {
+            throw new IllegalArgumentException("Клиент не найден: " + client.getId());
+        }
+        store.insertAccount(owner, account);
+        client.getAccounts().add(account);
+        dataVersion.increment();
+        return account;
+    }
+
+    @Override
+    public Optional<Client> findByUsername(String username) {
+        return client(store.findClientByUsername(username));
+    }
+
+    @Override
+    public Optional<Client> findById(String id) {
+        return client(store.findClientById(id));
+    }
+
+    @Override
+    public Optional<Client> findByAccountNumber(String accountNumber) {
+        int account = store.findAccountByNumber(accountNumber);
+        return account < 0 ? Optional.empty() : client(store.owner(account));
+    }
+
+    @Override
+    public Collection<Client> getAllClients() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Client> iterator() {
+                int end = store.clientCount();
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < end;
+                    }
+
+                    @Override
+                    public Client next() {
+                        if (next >= end) {
+                            throw new NoSuchElementException();
+                        }
+                        return store.client(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return store.clientCount();
+            }
+        };
+    }
+
+    @Override
+    public List<Client> findPage(String afterId, int limit) {
+        int start = 0;
+        if (afterId != null) {
+            int after = store.findClientById(afterId);
+            if (after < 0) {
+                return List.of();
+            }
+            start = after + 1;
+        }
+
+        int end = (int) Math.min(store.clientCount(), (long) start + limit);
+        List<Client> page = new ArrayList<>(Math.max(0, end - start));
+        for (int handle = start; handle < end; handle++) {
+            page.add(store.client(handle));
+        }
+        return page;
+    }
+
+    @Override
+    public int count() {
+        return store.clientCount();
+    }
+
+    private Optional<Client> client(int handle) {
+        return handle < 0 ? Optional.empty() : Optional.of(store.client(handle));
+    }
+}
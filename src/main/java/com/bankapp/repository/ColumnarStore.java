@@ -0,0 +1,423 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Колоночное хранилище клиентов и счетов (режим storage.mode=columnar).
+ * <p>
+ * Клиенты и счета получают плотные int-дескрипторы, а их поля лежат в примитивных массивах,
+ * разбитых на блоки по 65536 элементов: баланс, владелец, номера счета и карты как числа,
+ * UUID как пара long. Индексы - таблицы с открытой адресацией, в которых хранятся только
+ * дескрипторы, а ключи сравниваются прямо по колонкам. Объекты Account и Client
+ * создаются только при обращении как представления, поэтому размер кучи и паузы GC
+ * почти не зависят от количества счетов.
+ * <p>
+ * Создание выполняется под одной блокировкой, чтение идёт без блокировок: дескриптор
+ * публикуется в индексе только после записи всех колонок.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.mode", havingValue = "columnar")
+public class ColumnarStore {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Номера счетов и карт хранятся как шестнадцатеричные числа длиной до 16 цифр
+    private static final int MAX_NUMBER_LENGTH = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final class AccountChunk {
+        final long[] balances = new long[CHUNK_SIZE];
+        final long[] idHigh = new long[CHUNK_SIZE];
+        final long[] idLow = new long[CHUNK_SIZE];
+        final long[] numbers = new long[CHUNK_SIZE];
+        final long[] cards = new long[CHUNK_SIZE];
+        final byte[] numberLengths = new byte[CHUNK_SIZE];
+        final byte[] cardLengths = new byte[CHUNK_SIZE];
+        final int[] owners = new int[CHUNK_SIZE];
+        final int[] nextSiblings = new int[CHUNK_SIZE];
+    }
+
+    private static final class ClientChunk {
+        final long[] idHigh = new long[CHUNK_SIZE];
+        final long[] idLow = new long[CHUNK_SIZE];
+        final String[] fullNames = new String[CHUNK_SIZE];
+        final String[] phones = new String[CHUNK_SIZE];
+        final String[] usernames = new String[CHUNK_SIZE];
+        final String[] passwords = new String[CHUNK_SIZE];
+        final int[] firstAccounts = new int[CHUNK_SIZE];
+        final int[] lastAccounts = new int[CHUNK_SIZE];
+    }
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile AccountChunk[] accountChunks = new AccountChunk[0];
+    private volatile ClientChunk[] clientChunks = new ClientChunk[0];
+    private volatile int accountCount;
+    private volatile int clientCount;
+
+    // Индексы: номер счета, номер карты, id клиента, логин клиента
+    private final HandleIndex accountsByNumber = new HandleIndex(h -> hashNumber(
+            accountChunk(h).numbers[h & CHUNK_MASK], accountChunk(h).numberLengths[h & CHUNK_MASK]));
+    private final HandleIndex accountsByCard = new HandleIndex(h -> hashNumber(
+            accountChunk(h).cards[h & CHUNK_MASK], accountChunk(h).cardLengths[h & CHUNK_MASK]));
+    private final HandleIndex clientsById = new HandleIndex(h -> hashUuid(
+            clientChunk(h).idHigh[h & CHUNK_MASK], clientChunk(h).idLow[h & CHUNK_MASK]));
+    private final HandleIndex clientsByUsername = new HandleIndex(h -> hashString(
+            clientChunk(h).usernames[h & CHUNK_MASK]));
+
+    public int accountCount() {
+        return accountCount;
+    }
+
+    public int clientCount() {
+        return clientCount;
+    }
+
+    // Поиск дескрипторов; -1, если не найдено или ключ не может храниться в колонках
+
+    public int findAccountByNumber(String number) {
+        if (!isNumber(number)) {
+            return -1;
+        }
+        long value = Long.parseUnsignedLong(number, 16);
+        int length = number.length();
+        return accountsByNumber.find(hashNumber(value, length), h -> {
+            AccountChunk chunk = accountChunk(h);
+            return chunk.numbers[h & CHUNK_MASK] == value && chunk.numberLengths[h & CHUNK_MASK] == length;
+        });
+    }
+
+    public int findAccountByCard(String cardNumber) {
+        if (!isNumber(cardNumber)) {
+            return -1;
+        }
+        long value = Long.parseUnsignedLong(cardNumber, 16);
+        int length = cardNumber.length();
+        return accountsByCard.find(hashNumber(value, length), h -> {
+            AccountChunk chunk = accountChunk(h);
+            return chunk.cards[h & CHUNK_MASK] == value && chunk.cardLengths[h & CHUNK_MASK] == length;
+        });
+    }
+
+    public int findClientById(String id) {
+        UUID uuid = parseUuid(id);
+        if (uuid == null) {
+            return -1;
+        }
+        long high = uuid.getMostSignificantBits();
+        long low = uuid.getLeastSignificantBits();
+        return clientsById.find(hashUuid(high, low), h -> {
+            ClientChunk chunk = clientChunk(h);
+            return chunk.idHigh[h & CHUNK_MASK] == high && chunk.idLow[h & CHUNK_MASK] == low;
+        });
+    }
+
+    public int findClientByUsername(String username) {
+        if (username == null) {
+            return -1;
+        }
+        return clientsByUsername.find(hashString(username),
+                h -> username.equals(clientChunk(h).usernames[h & CHUNK_MASK]));
+    }
+
+    public long balance(int account) {
+        return (long) LONGS.getVolatile(accountChunk(account).balances, account & CHUNK_MASK);
+    }
+
+    public void setBalance(int account, long balanceKopecks) {
+        LONGS.setVolatile(accountChunk(account).balances, account & CHUNK_MASK, balanceKopecks);
+    }
+
+    public int owner(int account) {
+        return accountChunk(account).owners[account & CHUNK_MASK];
+    }
+
+    // Добавление клиента вместе с его счетами; для существующего id возвращается прежний дескриптор
+    public int insertClient(Client client) {
+        UUID id = requireUuid(client.getId());
+        int handle;
+        writeLock.lock();
+        try {
+            handle = findClientById(client.getId());
+            if (handle < 0) {
+                handle = clientCount;
+                if ((handle & CHUNK_MASK) == 0) {
+                    clientChunks = grow(clientChunks, handle, new ClientChunk());
+                }
+                ClientChunk chunk = clientChunk(handle);
+                int i = handle & CHUNK_MASK;
+                chunk.idHigh[i] = id.getMostSignificantBits();
+                chunk.idLow[i] = id.getLeastSignificantBits();
+                chunk.fullNames[i] = client.getFullName();
+                chunk.phones[i] = client.getPhone();
+                chunk.usernames[i] = client.getUsername();
+                chunk.passwords[i] = client.getPassword();
+                chunk.firstAccounts[i] = -1;
+                chunk.lastAccounts[i] = -1;
+
+                clientCount = handle + 1;
+                clientsById.insert(handle);
+                clientsByUsername.insert(handle);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        for (Account account : client.getAccounts()) {
+            insertAccount(handle, account);
+        }
+        return handle;
+    }
+
+    // Добавление счета владельцу (owner = -1 - без владельца); для существующего номера возвращается прежний дескриптор
+    public int insertAccount(int owner, Account account) {
+        UUID id = requireUuid(account.getId());
+        String number = requireNumber(account.getAccountNumber());
+        String card = requireNumber(account.getCardNumber());
+
+        writeLock.lock();
+        try {
+            int existing = findAccountByNumber(number);
+            if (existing >= 0) {
+                return existing;
+            }
+
+            int handle = accountCount;
+            if ((handle & CHUNK_MASK) == 0) {
+                accountChunks = grow(accountChunks, handle, new AccountChunk());
+            }
+            AccountChunk chunk = accountChunk(handle);
+            int i = handle & CHUNK_MASK;
+            chunk.balances[i] = account.getBalanceKopecks();
+            chunk.idHigh[i] = id.getMostSignificantBits();
+            chunk.idLow[i] = id.getLeastSignificantBits();
+            chunk.numbers[i] = Long.parseUnsignedLong(number, 16);
+            chunk.numberLengths[i] = (byte) number.length();
+            chunk.cards[i] = Long.parseUnsignedLong(card, 16);
+            chunk.cardLengths[i] = (byte) card.length();
+            chunk.owners[i] = owner;
+            chunk.nextSiblings[i] = -1;
+
+            accountCount = handle + 1;
+            accountsByNumber.insert(handle);
+            accountsByCard.insert(handle);
+
+            // Счет добавляется в конец списка счетов владельца
+            if (owner >= 0) {
+                ClientChunk ownerChunk = clientChunk(owner);
+                int o = owner & CHUNK_MASK;
+                int last = ownerChunk.lastAccounts[o];
+                if (last < 0) {
+                    INTS.setRelease(ownerChunk.firstAccounts, o, handle);
+                } else {
+                    INTS.setRelease(accountChunk(last).nextSiblings, last & CHUNK_MASK, handle);
+                }
+                ownerChunk.lastAccounts[o] = handle;
+            }
+            return handle;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Представление счета; баланс читается и пишется в колонку хранилища
+    public Account account(int handle) {
+        AccountChunk chunk = accountChunk(handle);
+        int i = handle & CHUNK_MASK;
+        return new ColumnarAccount(this, handle,
+                new UUID(chunk.idHigh[i], chunk.idLow[i]).toString(),
+                formatNumber(chunk.numbers[i], chunk.numberLengths[i]),
+                formatNumber(chunk.cards[i], chunk.cardLengths[i]));
+    }
+
+    // Представление клиента вместе с представлениями его счетов
+    public Client client(int handle) {
+        ClientChunk chunk = clientChunk(handle);
+        int i = handle & CHUNK_MASK;
+        Client client = new Client(new UUID(chunk.idHigh[i], chunk.idLow[i]).toString(),
+                chunk.fullNames[i], chunk.phones[i], chunk.usernames[i], chunk.passwords[i]);
+
+        List<Account> accounts = new ArrayList<>(2);
+        int account = (int) INTS.getAcquire(chunk.firstAccounts, i);
+        while (account >= 0) {
+            accounts.add(account(account));
+            account = (int) INTS.getAcquire(accountChunk(account).nextSiblings, account & CHUNK_MASK);
+        }
+        client.setAccounts(new CopyOnWriteArrayList<>(accounts));
+        return client;
+    }
+
+    private AccountChunk accountChunk(int handle) {
+        return accountChunks[handle >>> CHUNK_BITS];
+    }
+
+    private ClientChunk clientChunk(int handle) {
+        return clientChunks[handle >>> CHUNK_BITS];
+    }
+
+    private static <T> T[] grow(T[] chunks, int handle, T chunk) {
+        T[] grown = Arrays.copyOf(chunks, (handle >>> CHUNK_BITS) + 1);
+        grown[handle >>> CHUNK_BITS] = chunk;
+        return grown;
+    }
+
+    private static boolean isNumber(String value) {
+        if (value == null || value.isEmpty() || value.length() > MAX_NUMBER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String requireNumber(String value) {
+        if (!isNumber(value)) {
+            throw new IllegalArgumentException("Номер должен состоять из 1-16 шестнадцатеричных цифр: " + value);
+        }
+        return value;
+    }
+
+    private static String formatNumber(long value, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    // UUID только в каноническом виде (нижний регистр), чтобы представление совпадало с исходной строкой
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        long high = 0;
+        long low = 0;
+        int digits = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return null;
+                }
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0 || (c >= 'A' && c <= 'F')) {
+                return null;
+            }
+            if (digits++ < 16) {
+                high = (high << 4) | digit;
+            } else {
+                low = (low << 4) | digit;
+            }
+        }
+        return new UUID(high, low);
+    }
+
+    private static UUID requireUuid(String value) {
+        UUID uuid = parseUuid(value);
+        if (uuid == null) {
+            throw new IllegalArgumentException("Идентификатор должен быть UUID: " + value);
+        }
+        return uuid;
+    }
+
+    private static long hashNumber(long value, int length) {
+        return mix(value * 31 + length);
+    }
+
+    private static long hashUuid(long high, long low) {
+        return mix(high ^ Long.rotateLeft(low, 32));
+    }
+
+    private static long hashString(String value) {
+        return mix(value.hashCode());
+    }
+
+    // Финальное перемешивание из MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Хеш-таблица с открытой адресацией и линейным пробированием, хранящая дескриптор + 1
+     * (0 - пустая ячейка). Вставка выполняется под блокировкой хранилища, поиск - без блокировок.
+     */
+    private static final class HandleIndex {
+
+        private final IntToLongFunction hashOf;
+        private volatile int[] slots = new int[1024];
+        private int size;
+
+        HandleIndex(IntToLongFunction hashOf) {
+            this.hashOf = hashOf;
+        }
+
+        int find(long hash, IntPredicate matches) {
+            int[] table = slots;
+            int mask = table.length - 1;
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                int slot = (int) INTS.getAcquire(table, i);
+                if (slot == 0) {
+                    return -1;
+                }
+                if (matches.test(slot - 1)) {
+                    return slot - 1;
+                }
+            }
+        }
+
+        void insert(int handle) {
+            if ((size + 1) * 2 > slots.length) {
+                // Новая таблица заполняется целиком и только потом публикуется
+                int[] grown = new int[slots.length * 2];
+                for (int slot : slots) {
+                    if (slot != 0) {
+                        place(grown, slot - 1);
+                    }
+                }
+                slots = grown;
+            }
+            place(slots, handle);
+            size++;
+        }
+
+        private void place(int[] table, int handle) {
+            int mask = table.length - 1;
+            int i = (int) hashOf.applyAsLong(handle) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            INTS.setRelease(table, i, handle + 1);
+        }
+    }
+}
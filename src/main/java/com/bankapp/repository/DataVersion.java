@@ -0,0 +1,29 @@
+package com.bankapp.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Номер версии данных клиентов и счетов: увеличивается после каждого изменения клиента,
+ * счета или баланса. Одинаковая версия при двух чтениях означает, что между ними
+ * не завершилось ни одно изменение.
+ * <p>
+ * Версию увеличивает каждый перевод, поэтому счётчик - LongAdder: параллельные переводы
+ * не конкурируют за одну ячейку памяти. Сумма ячеек только растёт и учитывает все
+ * завершённые увеличения, чего достаточно для сравнения версий.
+ */
+@Component
+public class DataVersion {
+
+    private final LongAdder version = new LongAdder();
+
+    // Вызывается после изменения данных, а не до него
+    public void increment() {
+        version.increment();
+    }
+
+    public long current() {
+        return version.sum();
+    }
+}
@@ -0,0 +1,73 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.Account;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Хранение объектов Account в конкурентных картах (режим storage.mode=objects)
+@Repository
+@ConditionalOnProperty(name = "storage.mode", havingValue = "objects", matchIfMissing = true)
+public class ObjectAccountRepository implements AccountRepository {
+    private final ConcurrentMap<String, Account> accounts = new ConcurrentHashMap<>();
+
+    // Хеш-индексы по номеру счета и номеру карты
+    private final ConcurrentMap<String, Account> accountsByNumber = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Account> accountsByCardNumber = new ConcurrentHashMap<>();
+
+    private final DataVersion dataVersion;
+
+    public ObjectAccountRepository(DataVersion dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    @Override
+    public Account save(Account account) {
+        Account previous = accounts.put(account.getId(), account);
+        if (previous != null && previous != account) {
+            accountsByNumber.remove(previous.getAccountNumber(), previous);
+            accountsByCardNumber.remove(previous.getCardNumber(), previous);
+        }
+
+        accountsByNumber.put(account.getAccountNumber(), account);
+        accountsByCardNumber.put(account.getCardNumber(), account);
+        dataVersion.increment();
+        return account;
+    }
+
+    @Override
+    public Optional<Account> findByNumber(String number) {
+        return Optional.ofNullable(accountsByNumber.get(number));
+    }
+
+    @Override
+    public Optional<Account> findByCardNumber(String cardNumber) {
+        return Optional.ofNullable(accountsByCardNumber.get(cardNumber));
+    }
+
+    // Пакетный поиск: найденные счета в порядке запроса, отсутствующие пропускаются
+    @Override
+    public Map<String, Account> findAllByNumbers(Collection<String> numbers) {
+        Map<String, Account> result = new LinkedHashMap<>();
+        for (String number : numbers) {
+            Account account = accountsByNumber.get(number);
+            if (account != null) {
+                result.put(number, account);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Account> findAll() {
+        return Collections.unmodifiableCollection(accounts.values());
+    }
+
+    @Override
+    public int count() {
+        return accounts.size();
+    }
+}
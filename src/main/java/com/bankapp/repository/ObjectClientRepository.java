@@ -0,0 +1,106 @@
+package com.bankapp.repository;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Хранение объектов Client в конкурентных картах (режим storage.mode=objects)
+@Repository
+@ConditionalOnProperty(name = "storage.mode", havingValue = "objects", matchIfMissing = true)
+public class ObjectClientRepository implements ClientRepository {
+    // Клиенты упорядочены по id, что позволяет постранично обходить их по курсору
+    private final ConcurrentNavigableMap<String, Client> clients = new ConcurrentSkipListMap<>();
+
+    // Размер ConcurrentSkipListMap считается обходом, поэтому количество хранится отдельно
+    private final AtomicInteger clientCount = new AtomicInteger();
+
+    // Вторичные индексы: логин -> клиент и номер счета -> владелец
+    private final ConcurrentMap<String, Client> clientsByUsername = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Client> clientsByAccountNumber = new ConcurrentHashMap<>();
+
+    private final DataVersion dataVersion;
+
+    public ObjectClientRepository(DataVersion dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    @Override
+    public Client save(Client client) {
+        Client previous = clients.put(client.getId(), client);
+        if (previous == null) {
+            clientCount.incrementAndGet();
+        } else if (previous != client) {
+            unindex(previous);
+        }
+
+        clientsByUsername.put(client.getUsername(), client);
+        for (Account account : client.getAccounts()) {
+            clientsByAccountNumber.put(account.getAccountNumber(), client);
+        }
+        dataVersion.increment();
+        return client;
+    }
+
+    // Добавление счета клиенту с обновлением индекса по номеру счета
+    @Override
+    public Account addAccount(Client client, Account account) {
+        clientsByAccountNumber.put(account.getAccountNumber(), client);
+        client.getAccounts().add(account);
+        dataVersion.increment();
+        return account;
+    }
+
+    @Override
+    public Optional<Client> findByUsername(String username) {
+        return Optional.ofNullable(clientsByUsername.get(username));
+    }
+
+    @Override
+    public Optional<Client> findById(String id) {
+        return Optional.ofNullable(clients.get(id));
+    }
+
+    @Override
+    public Optional<Client> findByAccountNumber(String accountNumber) {
+        return Optional.ofNullable(clientsByAccountNumber.get(accountNumber));
+    }
+
+    @Override
+    public Collection<Client> getAllClients() {
+        return Collections.unmodifiableCollection(clients.values());
+    }
+
+    // Страница клиентов с id строго больше курсора; null означает начало списка
+    @Override
+    public List<Client> findPage(String afterId, int limit) {
+        Collection<Client> tail = afterId == null ? clients.values() : clients.tailMap(afterId, false).values();
+        List<Client> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Client client : tail) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(client);
+        }
+        return page;
+    }
+
+    @Override
+    public int count() {
+        return clientCount.get();
+    }
+
+    private void unindex(Client client) {
+        clientsByUsername.remove(client.getUsername(), client);
+        for (Account account : client.getAccounts()) {
+            clientsByAccountNumber.remove(account.getAccountNumber(), client);
+        }
+    }
+}
@@ -3,29 +3,98 @@ package com.bankapp.service;
 import com.bankapp.repository.AccountRepository;
 import com.bankapp.model.Account;
 import com.bankapp.model.Client;
+import com.bankapp.model.TransactionRecord;
 import com.bankapp.repository.ClientRepository;
+import com.bankapp.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class AccountService {
     private final AccountRepository accountRepository;
+    private final ClientRepository clientRepository;
+    private final TransferJournal transferJournal;
+    private final IdGenerator idGenerator;
+    private final TransactionHistory transactionHistory;
+    private final ClusterService cluster;
 
     public Account createAccount(String clientId) {
-        Optional<Client> clientOpt = ClientRepository.findById(clientId);
+        Optional<Client> clientOpt = clientRepository.findById(clientId);
         if (clientOpt.isEmpty()) {
             throw new RuntimeException("Client not found");
         }
 
-        Account account = new Account();
-        clientOpt.get().getAccounts().add(account);
-        return accountRepository.save(account);
+        // Счет попадает в журнал до того, как станет доступен для переводов
+        Account account = idGenerator.newAccount();
+        long journalPosition = transferJournal.appendAccount(clientId, account, () -> {
+            clientRepository.addAccount(clientOpt.get(), account);
+            accountRepository.save(account);
+        });
+        transferJournal.awaitDurable(journalPosition);
+        return account;
     }
 
     public Optional<Account> findByNumber(String number) {
         return accountRepository.findByNumber(number);
     }
+
+    // История операций по счету; пусто, если счет не найден
+    public Optional<List<TransactionRecord>> findTransactions(String number, Instant from, Instant to, int limit) {
+        if (accountRepository.findByNumber(number).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(transactionHistory.find(number, from, to, Math.min(limit, transactionHistory.getCapacity())));
+    }
+
+    // В режиме кластера номера других узлов запрашиваются у владельцев, по одному запросу на узел;
+    // результат, как и у репозитория, в порядке запроса
+    public Map<String, Account> findAllByNumbers(Collection<String> numbers) {
+        if (!cluster.isEnabled()) {
+            return accountRepository.findAllByNumbers(numbers);
+        }
+
+        Map<Integer, List<String>> byOwner = new HashMap<>();
+        for (String number : numbers) {
+            byOwner.computeIfAbsent(cluster.ownerOf(number), owner -> new ArrayList<>()).add(number);
+        }
+        Map<String, Account> found = new HashMap<>(
+                accountRepository.findAllByNumbers(byOwner.getOrDefault(cluster.getSelfIndex(), List.of())));
+        byOwner.remove(cluster.getSelfIndex());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        for (Map.Entry<Integer, List<String>> group : byOwner.entrySet()) {
+            ResponseEntity<Map<String, Account>> response = cluster.exchange(group.getKey(), HttpMethod.POST,
+                    "/accounts/lookup", headers, group.getValue(), new ParameterizedTypeReference<>() { });
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                throw new ClusterUnavailableException("Узел кластера " + cluster.nodeName(group.getKey()) +
+                        " ответил " + response.getStatusCode().value() + " на поиск счетов");
+            }
+            found.putAll(response.getBody());
+        }
+
+        Map<String, Account> ordered = new LinkedHashMap<>();
+        for (String number : numbers) {
+            Account account = found.get(number);
+            if (account != null) {
+                ordered.put(number, account);
+            }
+        }
+        return ordered;
+    }
 }
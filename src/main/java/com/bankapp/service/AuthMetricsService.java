@@ -0,0 +1,92 @@
+package com.bankapp.service;
+
+import com.bankapp.util.CircuitBreaker;
+import com.bankapp.util.ExpiringCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+@Component
+public class AuthMetricsService {
+
+    private final MeterRegistry registry;
+
+    // Счётчики отклонённых вызовов по причине
+    private final ConcurrentMap<String, Counter> rejectedCalls = new ConcurrentHashMap<>();
+
+    public AuthMetricsService(MeterRegistry registry, PoolingHttpClientConnectionManager authConnectionManager) {
+        this.registry = registry;
+        bindConnectionPool(authConnectionManager);
+    }
+
+    // Регистрация метрик кэша статуса авторизации
+    public void bindCache(ExpiringCache<?, ?> cache) {
+        FunctionCounter.builder("bankapp.auth.cache.hits", cache, ExpiringCache::hitCount)
+                .description("Количество обращений к authmock, обслуженных из кэша")
+                .register(registry);
+
+        FunctionCounter.builder("bankapp.auth.cache.misses", cache, ExpiringCache::missCount)
+                .description("Количество обращений к authmock, не найденных в кэше")
+                .register(registry);
+
+        FunctionCounter.builder("bankapp.auth.cache.evictions", cache, ExpiringCache::evictionCount)
+                .description("Количество вытесненных из кэша записей")
+                .register(registry);
+
+        Gauge.builder("bankapp.auth.cache.size", cache, ExpiringCache::size)
+                .description("Текущее количество записей в кэше статуса авторизации")
+                .register(registry);
+    }
+
+    // Регистрация метрик ограничителя одновременных вызовов
+    public void bindBulkhead(Semaphore bulkhead, int maxConcurrentCalls) {
+        Gauge.builder("bankapp.auth.bulkhead.active_calls", bulkhead,
+                        b -> maxConcurrentCalls - b.availablePermits())
+                .description("Текущее количество одновременных вызовов authmock")
+                .register(registry);
+
+        Gauge.builder("bankapp.auth.bulkhead.max_calls", () -> maxConcurrentCalls)
+                .description("Максимальное количество одновременных вызовов authmock")
+                .register(registry);
+    }
+
+    // Состояние выключателя: 0 - замкнут, 1 - разомкнут, 2 - пробный вызов
+    public void bindCircuitBreaker(CircuitBreaker circuitBreaker) {
+        Gauge.builder("bankapp.auth.circuit_breaker.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("Состояние автоматического выключателя вызовов authmock")
+                .register(registry);
+    }
+
+    public void rejectedCall(String reason) {
+        rejectedCalls.computeIfAbsent(reason, r -> Counter.builder("bankapp.auth.calls.rejected")
+                        .description("Количество вызовов authmock, отклонённых без обращения к сервису")
+                        .tag("reason", r)
+                        .register(registry))
+                .increment();
+    }
+
+    private void bindConnectionPool(PoolingHttpClientConnectionManager pool) {
+        Gauge.builder("bankapp.auth.pool.leased", pool, p -> p.getTotalStats().getLeased())
+                .description("Количество занятых соединений к authmock")
+                .register(registry);
+
+        Gauge.builder("bankapp.auth.pool.available", pool, p -> p.getTotalStats().getAvailable())
+                .description("Количество свободных keep-alive соединений к authmock")
+                .register(registry);
+
+        Gauge.builder("bankapp.auth.pool.pending", pool, p -> p.getTotalStats().getPending())
+                .description("Количество запросов, ожидающих соединение к authmock")
+                .register(registry);
+
+        Gauge.builder("bankapp.auth.pool.max", pool, p -> p.getTotalStats().getMax())
+                .description("Максимальный размер пула соединений к authmock")
+                .register(registry);
+    }
+}
@@ -0,0 +1,133 @@
+package com.bankapp.service;
+
+import com.bankapp.metrics.RequestPhases;
+import com.bankapp.util.CircuitBreaker;
+import com.bankapp.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Обращения к сервису авторизации authmock.
+ * <p>
+ * Ответы isLogged и loggedUser кэшируются на короткое время, одновременные одинаковые
+ * запросы объединяются в один вызов. Кэш отключается свойством authmock.cache.enabled.
+ * Число одновременных исходящих вызовов ограничено (bulkhead), а при серии ошибок
+ * автоматический выключатель отклоняет вызовы сразу, не дожидаясь таймаутов.
+ */
+@Service
+public class AuthService {
+
+    private static final String IS_LOGGED_PATH = "/auth/isLogged";
+    private static final String LOGGED_USER_PATH = "/auth/loggedUser";
+    private static final String REGISTER_PATH =
+            "/auth/register?fullName={fullName}&phone={phone}&username={username}&password={password}";
+
+    private final RestTemplate restTemplate;
+    private final AuthMetricsService authMetrics;
+    private final String baseUrl;
+    private final ExpiringCache<String, Object> cache;
+    private final Semaphore bulkhead;
+    private final long bulkheadMaxWaitMs;
+    private final CircuitBreaker circuitBreaker;
+
+    public AuthService(RestTemplate authRestTemplate,
+                       AuthMetricsService authMetrics,
+                       @Value("${authmock.url:http://localhost:8081}") String baseUrl,
+                       @Value("${authmock.cache.enabled:true}") boolean cacheEnabled,
+                       @Value("${authmock.cache.ttl-ms:250}") long ttlMs,
+                       @Value("${authmock.cache.max-size:1000}") int maxSize,
+                       @Value("${authmock.bulkhead.max-concurrent-calls:100}") int maxConcurrentCalls,
+                       @Value("${authmock.bulkhead.max-wait-ms:50}") long bulkheadMaxWaitMs,
+                       @Value("${authmock.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                       @Value("${authmock.circuit-breaker.open-duration-ms:5000}") long openDurationMs) {
+        this.restTemplate = authRestTemplate;
+        this.authMetrics = authMetrics;
+        this.baseUrl = baseUrl;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.bulkheadMaxWaitMs = bulkheadMaxWaitMs;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDurationMs, TimeUnit.MILLISECONDS);
+
+        authMetrics.bindBulkhead(bulkhead, maxConcurrentCalls);
+        authMetrics.bindCircuitBreaker(circuitBreaker);
+
+        if (cacheEnabled) {
+            this.cache = new ExpiringCache<>(ttlMs, TimeUnit.MILLISECONDS, maxSize);
+            authMetrics.bindCache(cache);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    // Статус авторизации; null, если authmock не вернул ответ
+    public Boolean isLogged() {
+        return fetch(IS_LOGGED_PATH, Boolean.class);
+    }
+
+    // Логин авторизованного пользователя
+    public String loggedUser() {
+        return fetch(LOGGED_USER_PATH, String.class);
+    }
+
+    // Регистрация пользователя в authmock
+    public String register(String fullName, String phone, String username, String password) {
+        return guarded(() -> restTemplate.postForObject(baseUrl + REGISTER_PATH, null, String.class,
+                fullName, phone, username, password));
+    }
+
+    private <T> T fetch(String path, Class<T> type) {
+        if (cache == null) {
+            return RequestPhases.time(RequestPhases.AUTH, () -> call(path, type));
+        }
+        return RequestPhases.time(RequestPhases.AUTH, () -> type.cast(cache.getOrLoad(path, p -> call(p, type))));
+    }
+
+    private <T> T call(String path, Class<T> type) {
+        return guarded(() -> restTemplate.getForEntity(baseUrl + path, type).getBody());
+    }
+
+    private <T> T guarded(Supplier<T> call) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            authMetrics.rejectedCall("circuit_open");
+            throw new AuthUnavailableException("Сервис авторизации недоступен: выключатель разомкнут");
+        }
+
+        try {
+            if (!bulkhead.tryAcquire(bulkheadMaxWaitMs, TimeUnit.MILLISECONDS)) {
+                circuitBreaker.releasePermission();
+                authMetrics.rejectedCall("bulkhead_full");
+                throw new AuthUnavailableException("Сервис авторизации перегружен: превышен лимит одновременных вызовов");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.releasePermission();
+            throw new AuthUnavailableException("Ожидание вызова сервиса авторизации прервано", e);
+        }
+
+        try {
+            T result = call.get();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (HttpClientErrorException e) {
+            // Ошибка 4xx означает, что authmock отвечает, и не размыкает выключатель
+            circuitBreaker.onSuccess();
+            throw e;
+        } catch (RestClientException e) {
+            circuitBreaker.onFailure();
+            throw new AuthUnavailableException("Ошибка вызова сервиса авторизации", e);
+        } catch (RuntimeException | Error e) {
+            // Любой исход вызова должен дойти до выключателя: иначе пробный вызов в HALF_OPEN
+            // не вернёт разрешение и выключатель будет отклонять все вызовы
+            circuitBreaker.onFailure();
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bankapp.service;
+
+// Сервис авторизации не ответил вовремя, вернул ошибку или вызов отклонён защитой
+public class AuthUnavailableException extends RuntimeException {
+
+    public AuthUnavailableException(String message) {
+        super(message);
+    }
+
+    public AuthUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
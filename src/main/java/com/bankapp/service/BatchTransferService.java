@@ -0,0 +1,164 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.BatchTransferItem;
+import com.bankapp.model.BatchTransferResult;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ClientRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетное выполнение переводов.
+ * <p>
+ * Операции объединяются в группы по связности счетов: две операции попадают в одну группу,
+ * если у них есть общий счет (напрямую или через цепочку операций). Внутри группы операции
+ * выполняются последовательно в исходном порядке, а независимые группы - параллельно
+ * в отдельном ForkJoinPool.
+ * <p>
+ * Как и одиночный перевод, пакет списывает средства только со счетов авторизованного пользователя:
+ * операции с чужим счетом отправителя отклоняются со статусом FORBIDDEN.
+ */
+@Service
+public class BatchTransferService implements DisposableBean {
+
+    private final AccountRepository accountRepository;
+    private final ClientRepository clientRepository;
+    private final TransferEngine transferEngine;
+    private final TransferJournal transferJournal;
+    private final ForkJoinPool pool;
+
+    public BatchTransferService(AccountRepository accountRepository, ClientRepository clientRepository,
+                                TransferEngine transferEngine, TransferJournal transferJournal,
+                                @Value("${transaction.batch.parallelism:0}") int parallelism) {
+        this.accountRepository = accountRepository;
+        this.clientRepository = clientRepository;
+        this.transferEngine = transferEngine;
+        this.transferJournal = transferJournal;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Операции пакета от имени пользователя username; элементы пакета не null
+    public List<BatchTransferResult> execute(String username, List<BatchTransferItem> items) {
+        Set<String> ownAccounts = clientRepository.findByUsername(username)
+                .map(client -> client.getAccounts().stream()
+                        .map(Account::getAccountNumber)
+                        .collect(Collectors.toSet()))
+                .orElse(Set.of());
+
+        int n = items.size();
+        BatchTransferResult[] results = new BatchTransferResult[n];
+        Account[] senders = new Account[n];
+        Account[] recipients = new Account[n];
+        long[] amounts = new long[n];
+
+        // Номер счета -> индекс вершины для объединения в группы
+        Map<String, Integer> accountIds = new HashMap<>();
+        int[] parent = new int[2 * n];
+        int[] itemNode = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            BatchTransferItem item = items.get(i);
+            senders[i] = item.getSenderAccount() == null ? null
+                    : accountRepository.findByNumber(item.getSenderAccount()).orElse(null);
+            recipients[i] = item.getRecipientAccount() == null ? null
+                    : accountRepository.findByNumber(item.getRecipientAccount()).orElse(null);
+
+            if (senders[i] == null || recipients[i] == null) {
+                results[i] = new BatchTransferResult(i, BatchTransferResult.Status.ACCOUNT_NOT_FOUND);
+                itemNode[i] = -1;
+                continue;
+            }
+            if (!ownAccounts.contains(senders[i].getAccountNumber())) {
+                results[i] = new BatchTransferResult(i, BatchTransferResult.Status.FORBIDDEN);
+                itemNode[i] = -1;
+                continue;
+            }
+            amounts[i] = toKopecks(item.getAmount());
+            if (amounts[i] <= 0) {
+                results[i] = new BatchTransferResult(i, BatchTransferResult.Status.INVALID_AMOUNT);
+                itemNode[i] = -1;
+                continue;
+            }
+
+            int from = nodeId(accountIds, parent, senders[i].getAccountNumber());
+            int to = nodeId(accountIds, parent, recipients[i].getAccountNumber());
+            union(parent, from, to);
+            itemNode[i] = from;
+        }
+
+        // Группы операций по корню связной компоненты с сохранением исходного порядка
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (itemNode[i] >= 0) {
+                groups.computeIfAbsent(find(parent, itemNode[i]), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        pool.submit(() -> groups.values().parallelStream().forEach(group -> {
+            for (int i : group) {
+                results[i] = new BatchTransferResult(i, toResultStatus(
+                        transferEngine.transfer(senders[i], recipients[i], amounts[i], false)));
+            }
+        })).join();
+
+        // Подтверждение журнала ждём один раз для всего пакета
+        transferJournal.awaitDurable(transferJournal.position());
+
+        return List.of(results);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    // Сумма в копейках или 0, если сумма не является допустимым положительным числом
+    private static long toKopecks(double amount) {
+        if (!(amount > 0) || amount > Account.MAX_AMOUNT) {
+            return 0;
+        }
+        return Account.toKopecks(amount);
+    }
+
+    private static BatchTransferResult.Status toResultStatus(TransferEngine.Status status) {
+        return switch (status) {
+            case OK -> BatchTransferResult.Status.OK;
+            case INVALID_AMOUNT -> BatchTransferResult.Status.INVALID_AMOUNT;
+            case INSUFFICIENT_FUNDS -> BatchTransferResult.Status.INSUFFICIENT_FUNDS;
+        };
+    }
+
+    private static int nodeId(Map<String, Integer> accountIds, int[] parent, String accountNumber) {
+        return accountIds.computeIfAbsent(accountNumber, k -> {
+            int id = accountIds.size();
+            parent[id] = id;
+            return id;
+        });
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[rootB] = rootA;
+        }
+    }
+}
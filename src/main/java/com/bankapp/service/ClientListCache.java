@@ -0,0 +1,115 @@
+package com.bankapp.service;
+
+import com.bankapp.repository.ClientRepository;
+import com.bankapp.repository.DataVersion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Готовый JSON полного списка клиентов для текущей версии данных ({@link DataVersion}).
+ * <p>
+ * Пока данные не менялись, список не собирается и не сериализуется заново: запросы получают
+ * одни и те же байты. ETag - эпоха процесса и версия данных, поэтому совпадение If-None-Match
+ * проверяется без сборки ответа, а после перезапуска старые ETag не совпадают.
+ * <p>
+ * Пересборку выполняет один поток. Ожидавшие его запросы берут собранный результат, если он
+ * не старше версии на момент их прихода: в нём уже учтены все изменения, завершённые до запроса.
+ * Включается свойством transaction.clients.cache.enabled.
+ */
+@Component
+public class ClientListCache {
+
+    // Сериализованный список и версия данных, для которой он собран
+    public record Entry(long version, String etag, byte[] json, long serializationNanos) {
+    }
+
+    private final ClientRepository clientRepository;
+    private final DataVersion dataVersion;
+    private final ObjectMapper objectMapper;
+    private final TransactionMetricsService transactionMetrics;
+    private final boolean enabled;
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Entry cached;
+
+    public ClientListCache(ClientRepository clientRepository, DataVersion dataVersion, ObjectMapper objectMapper,
+                           TransactionMetricsService transactionMetrics,
+                           @Value("${transaction.clients.cache.enabled:true}") boolean enabled) {
+        this.clientRepository = clientRepository;
+        this.dataVersion = dataVersion;
+        this.objectMapper = objectMapper;
+        this.transactionMetrics = transactionMetrics;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ETag текущей версии данных
+    public String currentEtag() {
+        return etag(dataVersion.current());
+    }
+
+    // Ответ 304 по совпавшему ETag: сериализация не понадобилась
+    public void recordNotModified() {
+        transactionMetrics.getClientsCacheNotModified().increment();
+        Entry entry = cached;
+        if (entry != null) {
+            transactionMetrics.getClientsSerializationSaved().increment(nanosToSeconds(entry.serializationNanos()));
+        }
+    }
+
+    public Entry get() {
+        long version = dataVersion.current();
+        Entry entry = cached;
+        if (entry != null && entry.version() >= version) {
+            return hit(entry);
+        }
+
+        rebuildLock.lock();
+        try {
+            entry = cached;
+            if (entry != null && entry.version() >= version) {
+                return hit(entry);
+            }
+            // Версия читается до сборки: изменение во время сборки даст следующему запросу промах
+            long buildVersion = dataVersion.current();
+            long start = System.nanoTime();
+            byte[] json = objectMapper.writeValueAsBytes(List.copyOf(clientRepository.getAllClients()));
+            long elapsed = System.nanoTime() - start;
+
+            entry = new Entry(buildVersion, etag(buildVersion), json, elapsed);
+            cached = entry;
+            transactionMetrics.getClientsCacheMisses().increment();
+            transactionMetrics.getClientsSerializationTimer().record(elapsed, TimeUnit.NANOSECONDS);
+            return entry;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Entry hit(Entry entry) {
+        transactionMetrics.getClientsCacheHits().increment();
+        transactionMetrics.getClientsSerializationSaved().increment(nanosToSeconds(entry.serializationNanos()));
+        return entry;
+    }
+
+    private String etag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    private static double nanosToSeconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
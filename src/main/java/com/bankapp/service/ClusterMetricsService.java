@@ -0,0 +1,141 @@
+package com.bankapp.service;
+
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ClientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Метрики узла кластера: обработанные и пересланные запросы, межузловые переводы.
+// Все метрики помечены тегом node - именем этого узла, поэтому пропускная способность узлов
+// сравнивается в одной панели при сборе метрик со всех узлов
+@Component
+public class ClusterMetricsService {
+
+    private final MeterRegistry registry;
+    private final String node;
+
+    // Запросы к данным кластера, обработанные на этом узле: от клиентов и пересланные другими узлами
+    private final Counter clientRequests;
+    private final Counter peerRequests;
+    private final Counter misdirectedRequests;
+
+    // Пересылка владельцу данных по узлам-получателям
+    private final List<Timer> forwarded = new ArrayList<>();
+    private final List<Counter> forwardErrors = new ArrayList<>();
+
+    // Межузловые переводы, начатые этим узлом, и зачисления, подготовленные для других узлов
+    private final Map<ClusterTransferService.Result, Counter> transfers =
+            new EnumMap<>(ClusterTransferService.Result.class);
+    private final Timer transferTimer;
+    private final Counter creditsPrepared;
+    private final Counter creditsCommitted;
+    private final Counter creditsAborted;
+
+    public ClusterMetricsService(MeterRegistry registry, ClusterService cluster,
+                                 ClientRepository clientRepository, AccountRepository accountRepository) {
+        this.registry = registry;
+        this.node = cluster.nodeName(cluster.getSelfIndex());
+
+        this.clientRequests = Counter.builder("bankapp.cluster.requests")
+                .description("Запросы к данным узла, обработанные на этом узле")
+                .tag("node", node)
+                .tag("origin", "client")
+                .register(registry);
+
+        this.peerRequests = Counter.builder("bankapp.cluster.requests")
+                .description("Запросы к данным узла, обработанные на этом узле")
+                .tag("node", node)
+                .tag("origin", "peer")
+                .register(registry);
+
+        this.misdirectedRequests = Counter.builder("bankapp.cluster.misdirected")
+                .description("Пересланные запросы к данным, которыми узел не владеет (разные списки узлов)")
+                .tag("node", node)
+                .register(registry);
+
+        for (int target = 0; target < cluster.getNodes().size(); target++) {
+            if (target == cluster.getSelfIndex()) {
+                // Себе запросы не пересылаются
+                forwarded.add(null);
+                forwardErrors.add(null);
+                continue;
+            }
+            String targetName = cluster.nodeName(target);
+            forwarded.add(Timer.builder("bankapp.cluster.forwarded")
+                    .description("Запросы, пересланные узлу-владельцу данных")
+                    .tag("node", node)
+                    .tag("target", targetName)
+                    .register(registry));
+            forwardErrors.add(Counter.builder("bankapp.cluster.forward_errors")
+                    .description("Запросы, не пересланные из-за недоступности узла-владельца")
+                    .tag("node", node)
+                    .tag("target", targetName)
+                    .register(registry));
+        }
+
+        for (ClusterTransferService.Result result : ClusterTransferService.Result.values()) {
+            transfers.put(result, Counter.builder("bankapp.cluster.transfers")
+                    .description("Межузловые переводы, начатые этим узлом, по результату")
+                    .tag("node", node)
+                    .tag("result", result.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+
+        this.transferTimer = Timer.builder("bankapp.cluster.transfer.duration")
+                .description("Длительность межузлового перевода: подготовка, списание и подтверждение")
+                .tag("node", node)
+                .register(registry);
+
+        this.creditsPrepared = creditCounter("prepared");
+        this.creditsCommitted = creditCounter("committed");
+        this.creditsAborted = creditCounter("aborted");
+
+        Gauge.builder("bankapp.cluster.owned_clients", clientRepository, ClientRepository::count)
+                .description("Количество клиентов, хранящихся на этом узле")
+                .tag("node", node)
+                .register(registry);
+
+        Gauge.builder("bankapp.cluster.owned_accounts", accountRepository, AccountRepository::count)
+                .description("Количество счетов, хранящихся на этом узле")
+                .tag("node", node)
+                .register(registry);
+    }
+
+    // Подготовленные, но ещё не подтверждённые зачисления на счета этого узла
+    public void bindPendingCredits(LongSupplier pending) {
+        Gauge.builder("bankapp.cluster.pending_credits", pending::getAsLong)
+                .description("Подготовленные, но не подтверждённые зачисления межузловых переводов")
+                .tag("node", node)
+                .register(registry);
+    }
+
+    private Counter creditCounter(String phase) {
+        return Counter.builder("bankapp.cluster.credits")
+                .description("Зачисления межузловых переводов на счета этого узла по фазам")
+                .tag("node", node)
+                .tag("phase", phase)
+                .register(registry);
+    }
+
+    // Геттеры
+    public Counter getClientRequests() { return clientRequests; }
+    public Counter getPeerRequests() { return peerRequests; }
+    public Counter getMisdirectedRequests() { return misdirectedRequests; }
+    public Timer getForwarded(int target) { return forwarded.get(target); }
+    public Counter getForwardErrors(int target) { return forwardErrors.get(target); }
+    public Counter getTransfers(ClusterTransferService.Result result) { return transfers.get(result); }
+    public Timer getTransferTimer() { return transferTimer; }
+    public Counter getCreditsPrepared() { return creditsPrepared; }
+    public Counter getCreditsCommitted() { return creditsCommitted; }
+    public Counter getCreditsAborted() { return creditsAborted; }
+}
@@ -0,0 +1,152 @@
+package com.bankapp.service;
+
+import com.bankapp.metrics.RequestPhases;
+import com.bankapp.util.ConsistentHashRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Распределение клиентов и счетов между узлами кластера.
+ * <p>
+ * Узлы перечислены в cluster.nodes (базовые URL через запятую) в одинаковом порядке на всех
+ * узлах, cluster.self-index - номер этого узла в списке. Владелец клиента определяется по логину,
+ * владелец счета - по номеру счета, владелец записи по id - по id; все три ключа клиента и его
+ * счетов указывают на один узел, потому что {@link com.bankapp.util.IdGenerator} выдаёт только
+ * номера и id, принадлежащие своему узлу. Координация между узлами для этого не нужна.
+ * <p>
+ * Узлы подписывают запросы друг к другу общим секретом cluster.secret: без него внутренние
+ * вызовы /cluster/** отклоняются, а запрос не считается пересланным другим узлом.
+ * <p>
+ * Без cluster.enabled=true все данные локальные и обращений к другим узлам нет.
+ */
+@Service
+public class ClusterService {
+
+    // Узел, переславший запрос; такой запрос повторно не пересылается
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded-By";
+    // Общий секрет узлов кластера в запросах между ними
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterService.class);
+
+    private final RestTemplate restTemplate;
+    private final boolean enabled;
+    private final List<String> nodes;
+    private final int selfIndex;
+    private final int virtualNodes;
+    private final String secret;
+    private final ConsistentHashRing ring;
+
+    public ClusterService(RestTemplate clusterRestTemplate,
+                          @Value("${cluster.enabled:false}") boolean enabled,
+                          @Value("${cluster.nodes:}") String nodes,
+                          @Value("${cluster.self-index:0}") int selfIndex,
+                          @Value("${cluster.virtual-nodes:128}") int virtualNodes,
+                          @Value("${cluster.secret:}") String secret) {
+        this.restTemplate = clusterRestTemplate;
+        this.enabled = enabled;
+        this.selfIndex = selfIndex;
+        this.virtualNodes = virtualNodes;
+        this.secret = secret;
+        this.nodes = Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .map(node -> node.endsWith("/") ? node.substring(0, node.length() - 1) : node)
+                .toList();
+
+        if (!enabled) {
+            this.ring = null;
+            return;
+        }
+        if (this.nodes.isEmpty()) {
+            throw new IllegalStateException("Не задан список узлов кластера cluster.nodes");
+        }
+        if (selfIndex < 0 || selfIndex >= this.nodes.size()) {
+            throw new IllegalStateException("cluster.self-index вне списка узлов: " + selfIndex);
+        }
+        if (secret.isBlank()) {
+            throw new IllegalStateException("Не задан общий секрет узлов кластера cluster.secret");
+        }
+        this.ring = new ConsistentHashRing(this.nodes, virtualNodes);
+        log.info("🔗 Кластер: узел {} ({} из {}), виртуальных точек на узел: {}",
+                nodeName(selfIndex), selfIndex + 1, this.nodes.size(), virtualNodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Данные с этим ключом (логин, id или номер счета) хранятся на этом узле
+    public boolean isLocal(String key) {
+        return !enabled || ring.ownerOf(key) == selfIndex;
+    }
+
+    public int ownerOf(String key) {
+        return enabled ? ring.ownerOf(key) : selfIndex;
+    }
+
+    // Запрос пришёл от узла кластера: предъявлен общий секрет
+    public boolean isPeer(String presentedSecret) {
+        return enabled && presentedSecret != null && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getSelfIndex() {
+        return selfIndex;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    // Имя узла для логов и меток метрик: хост и порт из URL
+    public String nodeName(int node) {
+        if (!enabled) {
+            return "standalone";
+        }
+        String authority = URI.create(nodes.get(node)).getAuthority();
+        return authority != null ? authority : nodes.get(node);
+    }
+
+    public <T> ResponseEntity<T> exchange(int node, HttpMethod method, String pathAndQuery, Class<T> type) {
+        return exchange(node, method, pathAndQuery, new HttpHeaders(), null, ParameterizedTypeReference.forType(type));
+    }
+
+    /**
+     * Запрос к другому узлу с пометкой {@link #FORWARDED_HEADER} и секретом {@link #SECRET_HEADER}. Ответ возвращается с любым кодом,
+     * исключение - только если узел не ответил.
+     */
+    public <T> ResponseEntity<T> exchange(int node, HttpMethod method, String pathAndQuery, HttpHeaders headers,
+                                          Object body, ParameterizedTypeReference<T> type) {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.addAll(headers);
+        requestHeaders.set(FORWARDED_HEADER, nodeName(selfIndex));
+        requestHeaders.set(SECRET_HEADER, secret);
+        RequestEntity<Object> request = new RequestEntity<>(body, requestHeaders, method,
+                URI.create(nodes.get(node) + pathAndQuery));
+        try {
+            return RequestPhases.time(RequestPhases.CLUSTER, () -> restTemplate.exchange(request, type));
+        } catch (RestClientException e) {
+            throw new ClusterUnavailableException("Узел кластера " + nodeName(node) + " недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ClientRepository;
+import com.bankapp.util.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Переводы между счетами разных узлов кластера в две фазы.
+ * <p>
+ * Узел отправителя (координатор) сначала готовит зачисление на узле получателя: тот проверяет
+ * счет и запоминает перевод на cluster.transfer.prepare-ttl-ms. Затем координатор списывает
+ * средства у себя и подтверждает зачисление. Подтверждение повторяется при сбоях связи и
+ * идемпотентно по id перевода. Если узел получателя ответил, что подготовка истекла, зачисления
+ * не было и списанные средства возвращаются отправителю. Если подтверждение так и не получено,
+ * перевод считается неопределённым: он пишется в лог с id и учитывается в метрике
+ * bankapp.cluster.transfers{result=in_doubt} для сверки.
+ */
+@Service
+public class ClusterTransferService {
+
+    public enum Result {
+        OK,
+        INSUFFICIENT_FUNDS,
+        RECIPIENT_NOT_FOUND,
+        REFUNDED,
+        IN_DOUBT
+    }
+
+    // Получатель перевода на узле-владельце; accountId == null, если у клиента нет такого счета
+    public record Recipient(String clientId, String fullName, String accountId) {
+    }
+
+    // Подготовленное зачисление на счет этого узла
+    private static final class PendingCredit {
+        private final String accountNumber;
+        private final long amountKopecks;
+        private final String counterparty;
+        // Подтверждения и отмена одного перевода выполняются по очереди под этой блокировкой
+        private final ReentrantLock lock = new ReentrantLock();
+        // Изменяется только под lock: null - ожидает подтверждения, true - зачислен, false - отменён
+        private Boolean outcome;
+
+        private PendingCredit(String accountNumber, long amountKopecks, String counterparty) {
+            this.accountNumber = accountNumber;
+            this.amountKopecks = amountKopecks;
+            this.counterparty = counterparty;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterTransferService.class);
+
+    private static final String TRANSFERS_PATH = "/cluster/transfers/";
+    private static final String RECIPIENTS_PATH = "/cluster/recipients/";
+
+    private final ClusterService cluster;
+    private final ClusterMetricsService clusterMetrics;
+    private final TransferEngine transferEngine;
+    private final ClientRepository clientRepository;
+    private final AccountRepository accountRepository;
+    private final int commitAttempts;
+    private final long retryBackoffMs;
+
+    private final ExpiringCache<String, PendingCredit> pending;
+    // Подтверждённые переводы: повторное подтверждение отвечает успехом без зачисления
+    private final ExpiringCache<String, Boolean> committed;
+
+    public ClusterTransferService(ClusterService cluster, ClusterMetricsService clusterMetrics,
+                                  TransferEngine transferEngine, ClientRepository clientRepository,
+                                  AccountRepository accountRepository,
+                                  @Value("${cluster.transfer.prepare-ttl-ms:30000}") long prepareTtlMs,
+                                  @Value("${cluster.transfer.max-pending:100000}") int maxPending,
+                                  @Value("${cluster.transfer.commit-attempts:5}") int commitAttempts,
+                                  @Value("${cluster.transfer.retry-backoff-ms:50}") long retryBackoffMs) {
+        this.cluster = cluster;
+        this.clusterMetrics = clusterMetrics;
+        this.transferEngine = transferEngine;
+        this.clientRepository = clientRepository;
+        this.accountRepository = accountRepository;
+        this.commitAttempts = Math.max(1, commitAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.pending = new ExpiringCache<>(prepareTtlMs, TimeUnit.MILLISECONDS, maxPending);
+        // Подтверждение хранится дольше подготовки, чтобы повтор после истечения подготовки не вернул средства.
+        // Размер не ограничен: вытеснение подтверждения при переполнении привело бы к возврату уже
+        // зачисленного перевода. Записи удаляются только по времени, их не больше, чем подтверждений за 2 TTL
+        this.committed = new ExpiringCache<>(prepareTtlMs * 2, TimeUnit.MILLISECONDS, Integer.MAX_VALUE);
+        clusterMetrics.bindPendingCredits(pending::size);
+    }
+
+    /**
+     * Получатель на узле-владельце логина. Пусто, если клиента нет.
+     */
+    public Optional<Recipient> findRecipient(String username, String accountNumber) {
+        int owner = cluster.ownerOf(username);
+        ResponseEntity<Recipient> response = cluster.exchange(owner, HttpMethod.GET, RECIPIENTS_PATH +
+                UriUtils.encodePathSegment(username, StandardCharsets.UTF_8) +
+                "?accountNumber=" + encode(accountNumber), Recipient.class);
+        if (response.getStatusCode() == HttpStatus.NOT_FOUND) {
+            return Optional.empty();
+        }
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new ClusterUnavailableException("Узел кластера " + cluster.nodeName(owner) +
+                    " ответил " + response.getStatusCode().value() + " на поиск получателя");
+        }
+        return Optional.of(response.getBody());
+    }
+
+    // Поиск получателя среди клиентов этого узла по запросу другого узла
+    public Optional<Recipient> findLocalRecipient(String username, String accountNumber) {
+        return clientRepository.findByUsername(username).map(client -> new Recipient(client.getId(),
+                client.getFullName(), clientRepository.findByAccountNumber(accountNumber)
+                .filter(owner -> owner.getId().equals(client.getId()))
+                .flatMap(owner -> owner.getAccounts().stream()
+                        .filter(a -> a.getAccountNumber().equals(accountNumber))
+                        .findFirst())
+                .map(Account::getId)
+                .orElse(null)));
+    }
+
+    /**
+     * Перевод со счета этого узла на счет другого узла. Без ответа узла получателя на подготовку
+     * выбрасывает {@link ClusterUnavailableException}, средства при этом не списываются.
+     */
+    public Result transfer(Account from, String toAccountNumber, long amountKopecks) {
+        long start = System.nanoTime();
+        Result result = doTransfer(from, toAccountNumber, amountKopecks);
+        clusterMetrics.getTransferTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        clusterMetrics.getTransfers(result).increment();
+        return result;
+    }
+
+    private Result doTransfer(Account from, String toAccountNumber, long amountKopecks) {
+        String id = UUID.randomUUID().toString();
+        int owner = cluster.ownerOf(toAccountNumber);
+
+        ResponseEntity<Void> prepared = cluster.exchange(owner, HttpMethod.POST, TRANSFERS_PATH + id +
+                "/prepare?account=" + encode(toAccountNumber) + "&amountKopecks=" + amountKopecks +
+                "&counterparty=" + encode(from.getAccountNumber()), Void.class);
+        if (prepared.getStatusCode() == HttpStatus.NOT_FOUND) {
+            return Result.RECIPIENT_NOT_FOUND;
+        }
+        if (!prepared.getStatusCode().is2xxSuccessful()) {
+            throw new ClusterUnavailableException("Узел кластера " + cluster.nodeName(owner) +
+                    " ответил " + prepared.getStatusCode().value() + " на подготовку перевода " + id);
+        }
+
+        if (transferEngine.adjust(from, -amountKopecks, toAccountNumber) != TransferEngine.Status.OK) {
+            abortQuietly(owner, id);
+            return Result.INSUFFICIENT_FUNDS;
+        }
+
+        for (int attempt = 1; attempt <= commitAttempts; attempt++) {
+            try {
+                ResponseEntity<Void> commit = cluster.exchange(owner, HttpMethod.POST,
+                        TRANSFERS_PATH + id + "/commit", Void.class);
+                if (commit.getStatusCode().is2xxSuccessful()) {
+                    return Result.OK;
+                }
+                if (commit.getStatusCode() == HttpStatus.GONE) {
+                    // Подготовка истекла или отменена: узел получателя не зачислил и уже не зачислит
+                    transferEngine.adjust(from, amountKopecks, toAccountNumber);
+                    log.warn("⚠️ Межузловой перевод {} отменён узлом {}, средства возвращены на счет {}",
+                            id, cluster.nodeName(owner), from.getAccountNumber());
+                    return Result.REFUNDED;
+                }
+            } catch (ClusterUnavailableException e) {
+                log.debug("Подтверждение перевода {}, попытка {}: {}", id, attempt, e.getMessage());
+            }
+            if (attempt < commitAttempts && !sleep(retryBackoffMs * attempt)) {
+                break;
+            }
+        }
+
+        log.error("❌ Межузловой перевод {} не подтверждён узлом {}: списано {} коп. со счета {} на счет {}",
+                id, cluster.nodeName(owner), amountKopecks, from.getAccountNumber(), toAccountNumber);
+        return Result.IN_DOUBT;
+    }
+
+    // Фаза подготовки на узле получателя: false, если счета на этом узле нет
+    public boolean prepare(String id, String accountNumber, long amountKopecks, String counterparty) {
+        if (amountKopecks <= 0 || !cluster.isLocal(accountNumber)
+                || accountRepository.findByNumber(accountNumber).isEmpty()) {
+            return false;
+        }
+        pending.put(id, new PendingCredit(accountNumber, amountKopecks, counterparty));
+        clusterMetrics.getCreditsPrepared().increment();
+        return true;
+    }
+
+    /**
+     * Фаза подтверждения: false, если подготовка истекла или перевод отменён. Одновременные
+     * подтверждения одного перевода ждут результата первого. Если зачисление завершилось
+     * исключением, перевод остаётся неподтверждённым и повтор координатора зачисляет заново.
+     */
+    public boolean commit(String id) {
+        if (committed.get(id) != null) {
+            return true;
+        }
+        PendingCredit credit = pending.get(id);
+        if (credit == null) {
+            return committed.get(id) != null;
+        }
+        credit.lock.lock();
+        try {
+            if (credit.outcome != null) {
+                return credit.outcome;
+            }
+            Account account = accountRepository.findByNumber(credit.accountNumber)
+                    .orElseThrow(() -> new IllegalStateException("Счет не найден: " + credit.accountNumber));
+            transferEngine.adjust(account, credit.amountKopecks, credit.counterparty);
+            credit.outcome = Boolean.TRUE;
+            committed.put(id, Boolean.TRUE);
+            pending.remove(id);
+        } finally {
+            credit.lock.unlock();
+        }
+        clusterMetrics.getCreditsCommitted().increment();
+        return true;
+    }
+
+    public void abort(String id) {
+        PendingCredit credit = pending.get(id);
+        if (credit == null) {
+            return;
+        }
+        credit.lock.lock();
+        try {
+            if (credit.outcome != null) {
+                return;
+            }
+            credit.outcome = Boolean.FALSE;
+            pending.remove(id);
+        } finally {
+            credit.lock.unlock();
+        }
+        clusterMetrics.getCreditsAborted().increment();
+    }
+
+    private void abortQuietly(int owner, String id) {
+        try {
+            cluster.exchange(owner, HttpMethod.POST, TRANSFERS_PATH + id + "/abort", Void.class);
+        } catch (ClusterUnavailableException e) {
+            // Подготовка истечёт сама
+            log.debug("Отмена перевода {}: {}", id, e.getMessage());
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String encode(String value) {
+        return UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8);
+    }
+}
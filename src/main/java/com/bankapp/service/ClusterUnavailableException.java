@@ -0,0 +1,13 @@
+package com.bankapp.service;
+
+// Узел кластера, владеющий данными, не ответил вовремя или вернул ошибку
+public class ClusterUnavailableException extends RuntimeException {
+
+    public ClusterUnavailableException(String message) {
+        super(message);
+    }
+
+    public ClusterUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,143 @@
+package com.bankapp.service;
+
+import com.bankapp.util.LatencyDistribution;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Профили внедрения задержек и ошибок для собственных эндпоинтов приложения.
+ * <p>
+ * Профиль задаётся на группу эндпоинтов и меняется во время работы через /actuator/faults.
+ * Профили хранятся в массиве ссылок: запрос читает профиль своей группы без блокировок,
+ * замена профиля видна следующим запросам.
+ */
+@Service
+public class FaultInjectionService {
+
+    // Группы эндпоинтов, для которых можно внедрять сбои
+    public enum Target {
+        ACCOUNTS("/accounts"),
+        TRANSACTIONS("/transactions"),
+        HELLO("/hello");
+
+        private final String path;
+
+        Target(String path) {
+            this.path = path;
+        }
+
+        // Группа по пути запроса без контекста приложения
+        public static Optional<Target> forPath(String requestPath) {
+            for (Target target : values()) {
+                if (requestPath.equals(target.path) || requestPath.startsWith(target.path + "/")) {
+                    return Optional.of(target);
+                }
+            }
+            return Optional.empty();
+        }
+
+        public static Target parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестная группа эндпоинтов: " + name +
+                        " (ожидается accounts, transactions или hello)");
+            }
+        }
+    }
+
+    // Что сделать с запросом: задержать на delayNanos и/или ответить ошибкой errorStatus
+    public record Decision(long delayNanos, int errorStatus) {
+
+        public boolean isError() {
+            return errorStatus > 0;
+        }
+    }
+
+    /**
+     * Профиль группы: распределение задержки, случайная добавка ±jitterMs к каждой задержке,
+     * доля запросов errorRate, получающих ответ errorStatus.
+     */
+    public static final class FaultProfile {
+
+        public static final FaultProfile NONE = new FaultProfile(LatencyDistribution.NONE, 0, 0, 500);
+
+        private final LatencyDistribution latency;
+        private final long jitterMs;
+        private final double errorRate;
+        private final int errorStatus;
+
+        public FaultProfile(LatencyDistribution latency, long jitterMs, double errorRate, int errorStatus) {
+            if (jitterMs < 0) {
+                throw new IllegalArgumentException("Разброс задержки не может быть отрицательным");
+            }
+            if (!(errorRate >= 0 && errorRate <= 1)) {
+                throw new IllegalArgumentException("Доля ошибок должна быть в диапазоне [0, 1]");
+            }
+            if (errorStatus < 400 || errorStatus > 599) {
+                throw new IllegalArgumentException("Код ошибки должен быть в диапазоне 400-599");
+            }
+            this.latency = latency;
+            this.jitterMs = jitterMs;
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+        }
+
+        public String getLatency() { return latency.toString(); }
+        public long getJitterMs() { return jitterMs; }
+        public double getErrorRate() { return errorRate; }
+        public int getErrorStatus() { return errorStatus; }
+
+        private Decision decide() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = latency.sampleNanos(random);
+            if (jitterMs > 0) {
+                long jitterNanos = TimeUnit.MILLISECONDS.toNanos(jitterMs);
+                delay = Math.max(0, delay + random.nextLong(-jitterNanos, jitterNanos + 1));
+            }
+            boolean error = errorRate > 0 && random.nextDouble() < errorRate;
+            return new Decision(delay, error ? errorStatus : 0);
+        }
+    }
+
+    private final AtomicReferenceArray<FaultProfile> profiles = new AtomicReferenceArray<>(Target.values().length);
+
+    public FaultInjectionService() {
+        for (Target target : Target.values()) {
+            profiles.set(target.ordinal(), FaultProfile.NONE);
+        }
+    }
+
+    // Решение для очередного запроса группы; пустое, если профиль не задан
+    public Optional<Decision> decide(Target target) {
+        FaultProfile profile = profiles.get(target.ordinal());
+        if (profile == FaultProfile.NONE) {
+            return Optional.empty();
+        }
+        Decision decision = profile.decide();
+        return decision.delayNanos() == 0 && !decision.isError() ? Optional.empty() : Optional.of(decision);
+    }
+
+    public void configure(Target target, FaultProfile profile) {
+        profiles.set(target.ordinal(), profile);
+    }
+
+    public void reset(Target target) {
+        profiles.set(target.ordinal(), FaultProfile.NONE);
+    }
+
+    public Map<Target, FaultProfile> getProfiles() {
+        Map<Target, FaultProfile> result = new EnumMap<>(Target.class);
+        for (Target target : Target.values()) {
+            result.put(target, profiles.get(target.ordinal()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.bankapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Метрики внедрения задержек и ошибок по группам эндпоинтов
+@Component
+public class FaultMetricsService {
+
+    // Счётчики и таймеры по группам эндпоинтов
+    private final Map<FaultInjectionService.Target, Counter> injectedErrors =
+            new EnumMap<>(FaultInjectionService.Target.class);
+    private final Map<FaultInjectionService.Target, Timer> injectedDelays =
+            new EnumMap<>(FaultInjectionService.Target.class);
+
+    // Gauge для количества запросов, ожидающих окончания внедрённой задержки
+    private final AtomicInteger delayedRequests = new AtomicInteger();
+
+    public FaultMetricsService(MeterRegistry registry) {
+        for (FaultInjectionService.Target target : FaultInjectionService.Target.values()) {
+            String tag = target.name().toLowerCase(Locale.ROOT);
+
+            injectedErrors.put(target, Counter.builder("bankapp.faults.injected_errors")
+                    .description("Количество ответов с внедрённой ошибкой")
+                    .tag("target", tag)
+                    .register(registry));
+
+            injectedDelays.put(target, Timer.builder("bankapp.faults.injected_delay")
+                    .description("Внедрённые задержки ответов")
+                    .tag("target", tag)
+                    .register(registry));
+        }
+
+        Gauge.builder("bankapp.faults.delayed_requests", delayedRequests, AtomicInteger::get)
+                .description("Количество запросов, ожидающих окончания внедрённой задержки")
+                .register(registry);
+    }
+
+    // Геттеры
+    public Counter getInjectedErrors(FaultInjectionService.Target target) { return injectedErrors.get(target); }
+    public Timer getInjectedDelay(FaultInjectionService.Target target) { return injectedDelays.get(target); }
+    public AtomicInteger getDelayedRequests() { return delayedRequests; }
+}
@@ -1,32 +1,59 @@
 package com.bankapp.service;
 
+import com.bankapp.util.HyperLogLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Метрики приветствия с ограниченной кардинальностью.
+ * <p>
+ * Отдельные метрики заводятся только для первых {@code maxTrackedNames} имён, остальные
+ * имена учитываются под тегом name="other". Количество уникальных имён оценивается
+ * HyperLogLog, поэтому память не растёт с числом имён.
+ */
 @Component
 public class HelloMetricsService {
 
+    private static final String OTHER_NAME = "other";
+
     private final MeterRegistry registry;
-    private final Set<String> uniqueNames = new ConcurrentSkipListSet<>();
+    private final int maxTrackedNames;
+
+    // Кэш метрик по имени, чтобы не искать их в реестре на каждом запросе
+    private final ConcurrentMap<String, NameMeters> trackedNames = new ConcurrentHashMap<>();
+    private final AtomicInteger admittedNames = new AtomicInteger();
+    private final NameMeters otherMeters;
+
+    private final HyperLogLog uniqueNames;
 
-    public HelloMetricsService(MeterRegistry registry) {
+    public HelloMetricsService(MeterRegistry registry,
+                               @Value("${hello.metrics.max-tracked-names:100}") int maxTrackedNames,
+                               @Value("${hello.metrics.unique-precision:14}") int uniquePrecision) {
         this.registry = registry;
+        this.maxTrackedNames = maxTrackedNames;
+        this.uniqueNames = new HyperLogLog(uniquePrecision);
+        this.otherMeters = createMeters(OTHER_NAME);
         registerMetrics();
     }
 
-    // Регистрация Gauge для подсчёта уникальных имён
+    // Регистрация Gauge для оценки количества уникальных имён
     private void registerMetrics() {
-        registry.gauge("hello.unique.users", Tags.empty(), uniqueNames, Set::size);
+        Gauge.builder("hello.unique.users", uniqueNames, HyperLogLog::estimate)
+                .description("Оценка количества уникальных имён пользователей")
+                .register(registry);
     }
 
     // Увеличиваем счётчик запросов
     public void incrementRequests(String name) {
-        registry.counter("hello.requests.count", Tags.of("name", name)).increment();
+        metersFor(name).requests().increment();
     }
 
     // Замеряем время выполнения
@@ -35,11 +62,35 @@ public class HelloMetricsService {
     }
 
     public void recordLatency(Timer.Sample sample, String name) {
-        sample.stop(registry.timer("hello.requests.latency", Tags.of("name", name)));
+        sample.stop(metersFor(name).latency());
     }
 
-    // Добавляем имя в список уникальных
+    // Добавляем имя в оценку количества уникальных
     public void addUniqueName(String name) {
         uniqueNames.add(name);
     }
-}
\ No newline at end of file
+
+    private NameMeters metersFor(String name) {
+        NameMeters meters = trackedNames.get(name);
+        if (meters != null) {
+            return meters;
+        }
+        if (admittedNames.get() >= maxTrackedNames || OTHER_NAME.equals(name)) {
+            return otherMeters;
+        }
+
+        // Новое имя получает свои метрики, только пока не исчерпан лимит
+        meters = trackedNames.computeIfAbsent(name, n ->
+                admittedNames.getAndIncrement() < maxTrackedNames ? createMeters(n) : null);
+        return meters != null ? meters : otherMeters;
+    }
+
+    private NameMeters createMeters(String name) {
+        return new NameMeters(
+                Counter.builder("hello.requests.count").tag("name", name).register(registry),
+                Timer.builder("hello.requests.latency").tag("name", name).register(registry));
+    }
+
+    private record NameMeters(Counter requests, Timer latency) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.bankapp.service;
+
+import com.bankapp.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Результаты операций по ключу идемпотентности (заголовок Idempotency-Key).
+ * <p>
+ * Повтор с тем же ключом получает сохранённый ответ без повторного выполнения, а одновременные
+ * дубликаты ждут завершения первого выполнения. Ключи действуют в пределах пользователя,
+ * хранятся transaction.idempotency.ttl-ms и вытесняются начиная с самых старых при превышении
+ * transaction.idempotency.max-size. Если операция завершилась исключением, результат
+ * не сохраняется и повтор выполняет её заново.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    // Ответ и параметры запроса, с которыми он был получен
+    private record Result(String fingerprint, ResponseEntity<String> response) {
+    }
+
+    private final ExpiringCache<String, Result> results;
+
+    public IdempotencyStore(TransactionMetricsService transactionMetrics,
+                            @Value("${transaction.idempotency.ttl-ms:600000}") long ttlMs,
+                            @Value("${transaction.idempotency.max-size:200000}") int maxSize) {
+        this.results = new ExpiringCache<>(ttlMs, TimeUnit.MILLISECONDS, maxSize);
+        transactionMetrics.bindIdempotency(results);
+    }
+
+    /**
+     * Выполняет action один раз для пары (username, key). fingerprint описывает параметры запроса:
+     * повтор ключа с другими параметрами отклоняется, а не получает чужой ответ.
+     */
+    public ResponseEntity<String> execute(String username, String key, String fingerprint,
+                                          Supplier<ResponseEntity<String>> action) {
+        boolean[] executed = new boolean[1];
+        Result result = results.getOrLoad(username + '\n' + key, k -> {
+            executed[0] = true;
+            return new Result(fingerprint, action.get());
+        });
+
+        if (executed[0]) {
+            return result.response();
+        }
+        if (!result.fingerprint().equals(fingerprint)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body("❌ Ошибка: Ключ идемпотентности уже использован с другими параметрами!");
+        }
+        return ResponseEntity.status(result.response().getStatusCode())
+                .headers(result.response().getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(result.response().getBody());
+    }
+}
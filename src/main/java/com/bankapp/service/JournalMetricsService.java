@@ -0,0 +1,82 @@
+package com.bankapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+@Component
+public class JournalMetricsService {
+
+    private final MeterRegistry registry;
+
+    // Счётчики
+    private final Counter replayedRecords;
+    private final Counter bufferFullWaits;
+
+    // Таймеры
+    private final Timer writeTimer;
+    private final Timer commitWaitTimer;
+    private final Timer replayTimer;
+
+    // Распределения размеров групп записи
+    private final DistributionSummary batchRecords;
+    private final DistributionSummary batchBytes;
+
+    public JournalMetricsService(MeterRegistry registry) {
+        this.registry = registry;
+
+        // Инициализация счётчиков
+        this.replayedRecords = Counter.builder("bankapp.journal.replay.records")
+                .description("Количество записей журнала, применённых при старте").register(registry);
+
+        this.bufferFullWaits = Counter.builder("bankapp.journal.buffer.full_waits")
+                .description("Количество ожиданий освобождения буфера журнала").register(registry);
+
+        // Инициализация таймеров
+        this.writeTimer = Timer.builder("bankapp.journal.write.duration")
+                .description("Время записи группы записей журнала на диск, включая fsync")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        this.commitWaitTimer = Timer.builder("bankapp.journal.commit.wait")
+                .description("Время ожидания подтверждения записи журнала вызывающим потоком")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        this.replayTimer = Timer.builder("bankapp.journal.replay.duration")
+                .description("Время восстановления данных из журнала при старте").register(registry);
+
+        // Инициализация распределений
+        this.batchRecords = DistributionSummary.builder("bankapp.journal.batch.records")
+                .description("Количество записей журнала в одной группе записи").register(registry);
+
+        this.batchBytes = DistributionSummary.builder("bankapp.journal.batch.bytes")
+                .description("Объём одной группы записи журнала в байтах").baseUnit("bytes").register(registry);
+    }
+
+    // Геттеры для счётчиков
+    public Counter getReplayedRecords() { return replayedRecords; }
+    public Counter getBufferFullWaits() { return bufferFullWaits; }
+
+    // Геттеры для таймеров
+    public Timer getWriteTimer() { return writeTimer; }
+    public Timer getCommitWaitTimer() { return commitWaitTimer; }
+    public Timer getReplayTimer() { return replayTimer; }
+
+    // Геттеры для распределений
+    public DistributionSummary getBatchRecords() { return batchRecords; }
+    public DistributionSummary getBatchBytes() { return batchBytes; }
+
+    // Gauge для размера файла журнала
+    public void bindJournalSize(LongSupplier size) {
+        Gauge.builder("bankapp.journal.size", size, LongSupplier::getAsLong)
+                .description("Текущий размер журнала переводов в байтах")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
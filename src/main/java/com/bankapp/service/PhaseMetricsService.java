@@ -0,0 +1,116 @@
+package com.bankapp.service;
+
+import com.bankapp.metrics.RequestPhases;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Таймеры фаз запросов {@link RequestPhases} и кольцо последних медленных запросов.
+ * <p>
+ * Таймер bankapp.transaction.phase с тегами operation и phase публикует гистограмму, поэтому
+ * p99 каждой фазы сравнивается с p99 всего запроса. Запросы дольше
+ * phases.slow-requests.threshold-ms вместе с разбивкой по фазам попадают в кольцо на
+ * phases.slow-requests.capacity записей: новые вытесняют самые старые. Медленные запросы
+ * редки, поэтому запись в кольцо - один инкремент счётчика и запись в ячейку без блокировок.
+ */
+@Component
+public class PhaseMetricsService {
+
+    // Медленный запрос с разбивкой по фазам в миллисекундах
+    public record SlowRequest(Instant timestamp, String operation, String method, String uri, int status,
+                              double durationMs, Map<String, Double> phasesMs) {
+    }
+
+    private final Map<String, Map<String, Timer>> timers = new HashMap<>();
+    private final Counter slowRequests;
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowRequest> ring;
+    private final AtomicLong written = new AtomicLong();
+
+    public PhaseMetricsService(MeterRegistry registry,
+                               @Value("${phases.slow-requests.capacity:100}") int capacity,
+                               @Value("${phases.slow-requests.threshold-ms:100}") long thresholdMs) {
+        // Набор операций фиксирован: таймеры создаются заранее, и карта только читается
+        for (String operation : List.of("transfer", "select_recipient")) {
+            Map<String, Timer> phases = new HashMap<>();
+            for (String phase : RequestPhases.PHASES) {
+                phases.put(phase, Timer.builder("bankapp.transaction.phase")
+                        .description("Время фазы обработки запроса")
+                        .tag("operation", operation)
+                        .tag("phase", phase)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(1000))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry));
+            }
+            timers.put(operation, phases);
+        }
+
+        this.slowRequests = Counter.builder("bankapp.transaction.slow_requests")
+                .description("Количество запросов дольше phases.slow-requests.threshold-ms")
+                .register(registry);
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.ring = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    // Вызывается один раз на запрос после записи ответа
+    public void record(RequestPhases.Trace trace, String method, String uri, int status) {
+        long end = System.nanoTime();
+        Map<String, Long> breakdown = trace.breakdown(end);
+        Map<String, Timer> phaseTimers = timers.get(trace.getOperation());
+        breakdown.forEach((phase, nanos) -> phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS));
+
+        long elapsed = trace.elapsed(end);
+        if (elapsed < thresholdNanos) {
+            return;
+        }
+        slowRequests.increment();
+        Map<String, Double> phasesMs = new LinkedHashMap<>();
+        breakdown.forEach((phase, nanos) -> phasesMs.put(phase, toMillis(nanos)));
+        int slot = (int) (written.getAndIncrement() % ring.length());
+        ring.set(slot, new SlowRequest(Instant.ofEpochMilli(trace.getStartMillis()), trace.getOperation(),
+                method, uri, status, toMillis(elapsed), phasesMs));
+    }
+
+    // Медленные запросы из кольца, от самых долгих
+    public List<SlowRequest> getSlowRequests() {
+        List<SlowRequest> requests = new ArrayList<>(ring.length());
+        for (int i = 0; i < ring.length(); i++) {
+            SlowRequest request = ring.get(i);
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        requests.sort(Comparator.comparingDouble(SlowRequest::durationMs).reversed());
+        return requests;
+    }
+
+    public void clearSlowRequests() {
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, null);
+        }
+    }
+
+    public long getThresholdMs() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bankapp.service;
+
+import com.bankapp.util.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Неблокирующие обращения к authmock для реактивного API.
+ * <p>
+ * Повторяет защиту {@link AuthService}: короткий кэш ответов с объединением одновременных
+ * запросов, ограничение числа одновременных вызовов и автоматический выключатель.
+ * Ограничитель не ждёт освобождения места: ожидание заняло бы поток, поэтому лишний вызов
+ * сразу отклоняется. Состояние выключателя и ограничителя своё, не общее с {@link AuthService}.
+ */
+@Service
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveAuthService {
+
+    private static final String IS_LOGGED_PATH = "/auth/isLogged";
+    private static final String LOGGED_USER_PATH = "/auth/loggedUser";
+
+    private final WebClient webClient;
+    private final AuthMetricsService authMetrics;
+    private final String baseUrl;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Mono<Boolean> isLogged;
+    private final Mono<String> loggedUser;
+
+    public ReactiveAuthService(WebClient authWebClient,
+                               AuthMetricsService authMetrics,
+                               @Value("${authmock.url:http://localhost:8081}") String baseUrl,
+                               @Value("${authmock.cache.enabled:true}") boolean cacheEnabled,
+                               @Value("${authmock.cache.ttl-ms:250}") long ttlMs,
+                               @Value("${authmock.bulkhead.max-concurrent-calls:100}") int maxConcurrentCalls,
+                               @Value("${authmock.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${authmock.circuit-breaker.open-duration-ms:5000}") long openDurationMs) {
+        this.webClient = authWebClient;
+        this.authMetrics = authMetrics;
+        this.baseUrl = baseUrl;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDurationMs, TimeUnit.MILLISECONDS);
+
+        Mono<Boolean> isLoggedCall = call(IS_LOGGED_PATH, Boolean.class);
+        Mono<String> loggedUserCall = call(LOGGED_USER_PATH, String.class);
+        if (cacheEnabled) {
+            // Ответ хранится ttl-ms, подписчики, пришедшие во время вызова, получают его же результат
+            Duration ttl = Duration.ofMillis(ttlMs);
+            this.isLogged = isLoggedCall.cache(value -> ttl, error -> Duration.ZERO, () -> Duration.ZERO);
+            this.loggedUser = loggedUserCall.cache(value -> ttl, error -> Duration.ZERO, () -> Duration.ZERO);
+        } else {
+            this.isLogged = isLoggedCall;
+            this.loggedUser = loggedUserCall;
+        }
+    }
+
+    // Статус авторизации; пустой результат, если authmock не вернул ответ
+    public Mono<Boolean> isLogged() {
+        return isLogged;
+    }
+
+    // Логин авторизованного пользователя
+    public Mono<String> loggedUser() {
+        return loggedUser;
+    }
+
+    private <T> Mono<T> call(String path, Class<T> type) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                authMetrics.rejectedCall("circuit_open");
+                return Mono.error(new AuthUnavailableException("Сервис авторизации недоступен: выключатель разомкнут"));
+            }
+            if (!bulkhead.tryAcquire()) {
+                circuitBreaker.releasePermission();
+                authMetrics.rejectedCall("bulkhead_full");
+                return Mono.error(new AuthUnavailableException(
+                        "Сервис авторизации перегружен: превышен лимит одновременных вызовов"));
+            }
+
+            return webClient.get().uri(baseUrl + path)
+                    .retrieve()
+                    .bodyToMono(type)
+                    .doOnSuccess(result -> circuitBreaker.onSuccess())
+                    .onErrorMap(e -> !(e instanceof WebClientResponseException response
+                            && response.getStatusCode().is4xxClientError()), e -> {
+                        circuitBreaker.onFailure();
+                        return new AuthUnavailableException("Ошибка вызова сервиса авторизации", e);
+                    })
+                    // Ошибка 4xx означает, что authmock отвечает, и не размыкает выключатель
+                    .doOnError(WebClientResponseException.class, e -> circuitBreaker.onSuccess())
+                    .doFinally(signal -> {
+                        bulkhead.release();
+                        if (signal == SignalType.CANCEL) {
+                            circuitBreaker.releasePermission();
+                        }
+                    });
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import com.bankapp.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выбранные получатели перевода по логину авторизованного пользователя.
+ * <p>
+ * Выбор живёт ограниченное время, а общее число записей ограничено: при превышении
+ * лимита вытесняются самые старые выборы.
+ */
+@Component
+public class RecipientSelectionStore {
+
+    // remote - получатель на другом узле кластера: client и account содержат только данные для перевода
+    public record Selection(Client client, Account account, boolean remote) {
+    }
+
+    private final ExpiringCache<String, Selection> selections;
+
+    public RecipientSelectionStore(TransactionMetricsService transactionMetrics,
+                                   @Value("${transaction.selection.ttl-ms:600000}") long ttlMs,
+                                   @Value("${transaction.selection.max-size:500000}") int maxSize) {
+        this.selections = new ExpiringCache<>(ttlMs, TimeUnit.MILLISECONDS, maxSize);
+        transactionMetrics.bindSelections(selections);
+    }
+
+    public void select(String username, Client client, Account account) {
+        selections.put(username, new Selection(client, account, false));
+    }
+
+    public void selectRemote(String username, Client client, Account account) {
+        selections.put(username, new Selection(client, account, true));
+    }
+
+    public Optional<Selection> find(String username) {
+        return Optional.ofNullable(selections.get(username));
+    }
+}
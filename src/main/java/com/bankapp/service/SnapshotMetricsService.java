@@ -0,0 +1,57 @@
+package com.bankapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class SnapshotMetricsService {
+
+    // Счётчики
+    private final Counter writeFailures;
+
+    // Таймеры
+    private final Timer writeTimer;
+    private final Timer loadTimer;
+
+    // Gauge для размера и количества клиентов последнего снимка
+    private final AtomicLong lastSnapshotBytes = new AtomicLong();
+    private final AtomicLong lastSnapshotClients = new AtomicLong();
+
+    public SnapshotMetricsService(MeterRegistry registry) {
+        // Инициализация счётчиков
+        this.writeFailures = Counter.builder("bankapp.snapshot.write.failures")
+                .description("Количество неудачных попыток создания снимка").register(registry);
+
+        // Инициализация таймеров
+        this.writeTimer = Timer.builder("bankapp.snapshot.write.duration")
+                .description("Время создания снимка клиентов и счетов").register(registry);
+
+        this.loadTimer = Timer.builder("bankapp.snapshot.load.duration")
+                .description("Время загрузки снимка при старте").register(registry);
+
+        // Инициализация Gauge
+        Gauge.builder("bankapp.snapshot.size", lastSnapshotBytes, AtomicLong::get)
+                .description("Размер последнего снимка в байтах")
+                .baseUnit("bytes")
+                .register(registry);
+
+        Gauge.builder("bankapp.snapshot.clients", lastSnapshotClients, AtomicLong::get)
+                .description("Количество клиентов в последнем снимке")
+                .register(registry);
+    }
+
+    // Геттеры
+    public Counter getWriteFailures() { return writeFailures; }
+    public Timer getWriteTimer() { return writeTimer; }
+    public Timer getLoadTimer() { return loadTimer; }
+
+    public void setLastSnapshot(long bytes, long clients) {
+        lastSnapshotBytes.set(bytes);
+        lastSnapshotClients.set(clients);
+    }
+}
@@ -0,0 +1,107 @@
+package com.bankapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Создание снимков по запросу через actuator и по расписанию.
+ * <p>
+ * Одновременно создаётся не больше одного снимка. С журналом переводы и создание клиентов
+ * и счетов во время создания снимка не останавливаются: они кратко ждут только фиксации позиции
+ * журнала. Без журнала они ждут, пока снимок записывается, иначе он мог бы содержать перевод,
+ * применённый только к одному из счетов.
+ */
+@Service
+public class SnapshotService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final SnapshotStore snapshotStore;
+    private final TransferJournal transferJournal;
+    private final SnapshotMetricsService snapshotMetrics;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile SnapshotStore.Info lastSnapshot;
+
+    public SnapshotService(SnapshotStore snapshotStore, TransferJournal transferJournal,
+                           SnapshotMetricsService snapshotMetrics,
+                           @Value("${snapshot.interval-ms:0}") long intervalMs) {
+        this.snapshotStore = snapshotStore;
+        this.transferJournal = transferJournal;
+        this.snapshotMetrics = snapshotMetrics;
+        this.lastSnapshot = snapshotStore.getLoaded().orElse(null);
+
+        // Интервал 0 отключает создание снимков по расписанию
+        if (intervalMs > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "snapshot-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    // Создание снимка; пустой результат, если другой снимок уже создаётся
+    public Optional<SnapshotStore.Info> createSnapshot() throws IOException {
+        if (!writeLock.tryLock()) {
+            return Optional.empty();
+        }
+        try {
+            SnapshotStore.Info info;
+            if (transferJournal.isEnabled()) {
+                long journalPosition = transferJournal.snapshotPosition();
+                // Снимок не должен опережать журнал на диске: иначе после сбоя его нельзя продолжить журналом
+                transferJournal.sync(journalPosition);
+                info = snapshotStore.write(transferJournal.getJournalId(), journalPosition);
+            } else {
+                // Без журнала неполный перевод в снимке исправить нечем, поэтому публикация ждёт записи снимка
+                info = transferJournal.whilePublishingPaused(() -> snapshotStore.write(0, 0));
+            }
+            lastSnapshot = info;
+            return Optional.of(info);
+        } catch (IOException | RuntimeException e) {
+            snapshotMetrics.getWriteFailures().increment();
+            throw e;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Optional<SnapshotStore.Info> getLastSnapshot() {
+        return Optional.ofNullable(lastSnapshot);
+    }
+
+    public boolean isInProgress() {
+        return writeLock.isLocked();
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Исключение в задаче по расписанию отменило бы все следующие запуски
+    private void scheduledSnapshot() {
+        try {
+            createSnapshot();
+        } catch (Exception e) {
+            log.error("❌ Ошибка создания снимка по расписанию", e);
+        }
+    }
+}
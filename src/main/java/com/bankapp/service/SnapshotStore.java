@@ -0,0 +1,322 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ClientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Бинарный снимок всех клиентов и счетов.
+ * <p>
+ * Файл состоит из заголовка и блоков: каждый блок содержит целое число клиентов вместе
+ * со счетами и контрольную сумму CRC32C. При старте блоки отображаются в память (mmap)
+ * и разбираются параллельно, поэтому загрузка миллионов счетов занимает секунды.
+ * Снимок пишется во временный файл и атомарно переименовывается, так что прерванная
+ * запись не портит предыдущий снимок.
+ */
+@Component
+public class SnapshotStore {
+
+    public record Info(String path, long createdAt, long clients, long accounts, long bytes,
+                       long journalId, long journalPosition, long durationMs) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+
+    // Заголовок: "BSNP", версия, время создания, журнал, количества клиентов, счетов и блоков
+    private static final int MAGIC = 0x42534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 8 + 8 + 4;
+
+    // Заголовок блока: длина данных, количество клиентов, CRC32C данных
+    private static final int BLOCK_HEADER_SIZE = 12;
+
+    // Признак null вместо длины строки
+    private static final int NULL_STRING = 0xFFFF;
+
+    private final ClientRepository clientRepository;
+    private final AccountRepository accountRepository;
+    private final SnapshotMetricsService snapshotMetrics;
+    private final Path path;
+    private final int blockSize;
+    private final int loadParallelism;
+
+    private Info loaded;
+
+    public SnapshotStore(ClientRepository clientRepository, AccountRepository accountRepository,
+                         SnapshotMetricsService snapshotMetrics,
+                         @Value("${snapshot.path:data/snapshot.bin}") String path,
+                         @Value("${snapshot.load-on-startup:true}") boolean loadOnStartup,
+                         @Value("${snapshot.block-size:4194304}") int blockSize,
+                         @Value("${snapshot.load-parallelism:0}") int loadParallelism) throws IOException {
+        this.clientRepository = clientRepository;
+        this.accountRepository = accountRepository;
+        this.snapshotMetrics = snapshotMetrics;
+        this.path = Path.of(path);
+        this.blockSize = Math.max(64 * 1024, blockSize);
+        this.loadParallelism = loadParallelism > 0 ? loadParallelism : Runtime.getRuntime().availableProcessors();
+
+        if (loadOnStartup && Files.exists(this.path)) {
+            loaded = load();
+        }
+    }
+
+    // Снимок, загруженный при старте
+    public Optional<Info> getLoaded() {
+        return Optional.ofNullable(loaded);
+    }
+
+    /**
+     * Запись снимка текущего состояния. Балансы читаются без блокировок счетов, поэтому
+     * снимок может содержать часть переводов после journalPosition; при восстановлении
+     * их повторно применяет журнал. Без журнала вызывающий код останавливает публикацию
+     * изменений на время записи (см. {@link TransferJournal#whilePublishingPaused}).
+     */
+    public Info write(long journalId, long journalPosition) throws IOException {
+        long start = System.nanoTime();
+        long createdAt = System.currentTimeMillis();
+
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        long clients = 0;
+        long accounts = 0;
+        int blocks = 0;
+        long bytes;
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.position(HEADER_SIZE);
+            ByteBuffer block = ByteBuffer.allocate(blockSize);
+            int blockClients = 0;
+
+            for (Client client : clientRepository.getAllClients()) {
+                Account[] clientAccounts = client.getAccounts().toArray(new Account[0]);
+                int mark = block.position();
+                try {
+                    writeClient(block, client, clientAccounts);
+                } catch (BufferOverflowException e) {
+                    // Клиент не поместился: сбрасываем накопленный блок, при необходимости увеличиваем буфер
+                    block.position(mark);
+                    if (blockClients > 0) {
+                        writeBlock(out, block, blockClients);
+                        blocks++;
+                        blockClients = 0;
+                    }
+                    block = writeOversized(block, client, clientAccounts);
+                }
+                blockClients++;
+                clients++;
+                accounts += clientAccounts.length;
+            }
+            if (blockClients > 0) {
+                writeBlock(out, block, blockClients);
+                blocks++;
+            }
+
+            bytes = out.position();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putLong(createdAt)
+                    .putLong(journalId).putLong(journalPosition)
+                    .putLong(clients).putLong(accounts).putInt(blocks)
+                    .flip();
+            while (header.hasRemaining()) {
+                out.write(header, header.position());
+            }
+            out.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long elapsedNanos = System.nanoTime() - start;
+        snapshotMetrics.getWriteTimer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        snapshotMetrics.setLastSnapshot(bytes, clients);
+
+        Info info = new Info(path.toAbsolutePath().toString(), createdAt, clients, accounts, bytes,
+                journalId, journalPosition, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.info("📸 Снимок записан: {} клиентов, {} счетов, {} байт за {} мс",
+                clients, accounts, bytes, info.durationMs());
+        return info;
+    }
+
+    private Info load() throws IOException {
+        long start = System.nanoTime();
+
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Снимок повреждён: " + path);
+            }
+
+            MappedByteBuffer header = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Неизвестный формат снимка: " + path);
+            }
+            long createdAt = header.getLong();
+            long journalId = header.getLong();
+            long journalPosition = header.getLong();
+            long clients = header.getLong();
+            long accounts = header.getLong();
+            int blocks = header.getInt();
+
+            // Сначала собираем границы блоков, затем разбираем блоки параллельно
+            List<long[]> blockBounds = new ArrayList<>(blocks);
+            ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+            long position = HEADER_SIZE;
+            for (int i = 0; i < blocks; i++) {
+                blockHeader.clear();
+                while (blockHeader.hasRemaining()) {
+                    if (in.read(blockHeader, position + blockHeader.position()) < 0) {
+                        throw new IOException("Снимок повреждён: " + path);
+                    }
+                }
+                blockHeader.flip();
+                int length = blockHeader.getInt();
+                int blockClients = blockHeader.getInt();
+                int checksum = blockHeader.getInt();
+                if (length < 0 || position + BLOCK_HEADER_SIZE + length > size) {
+                    throw new IOException("Снимок повреждён: " + path);
+                }
+                blockBounds.add(new long[]{position + BLOCK_HEADER_SIZE, length, blockClients, checksum});
+                position += BLOCK_HEADER_SIZE + length;
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(loadParallelism);
+            try {
+                pool.submit(() -> blockBounds.parallelStream().forEach(bounds -> loadBlock(in, bounds))).join();
+            } finally {
+                pool.shutdown();
+            }
+
+            long elapsedNanos = System.nanoTime() - start;
+            snapshotMetrics.getLoadTimer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+            snapshotMetrics.setLastSnapshot(size, clients);
+
+            Info info = new Info(path.toAbsolutePath().toString(), createdAt, clients, accounts, size,
+                    journalId, journalPosition, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            log.info("📸 Снимок загружен: {} клиентов, {} счетов за {} мс", clients, accounts, info.durationMs());
+            return info;
+        }
+    }
+
+    private void loadBlock(FileChannel in, long[] bounds) {
+        try {
+            MappedByteBuffer block = in.map(FileChannel.MapMode.READ_ONLY, bounds[0], bounds[1]);
+
+            CRC32C crc = new CRC32C();
+            crc.update(block.duplicate());
+            if ((int) crc.getValue() != (int) bounds[3]) {
+                throw new IOException("Контрольная сумма блока снимка не совпадает: " + path);
+            }
+
+            for (int i = 0; i < bounds[2]; i++) {
+                Client client = new Client(readString(block), readString(block), readString(block),
+                        readString(block), readString(block));
+                int accountCount = block.getInt();
+                List<Account> clientAccounts = new ArrayList<>(accountCount);
+                for (int j = 0; j < accountCount; j++) {
+                    clientAccounts.add(new Account(readString(block), readString(block), readString(block), block.getLong()));
+                }
+                client.setAccounts(new CopyOnWriteArrayList<>(clientAccounts));
+
+                clientRepository.save(client);
+                for (Account account : clientAccounts) {
+                    accountRepository.save(account);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeClient(ByteBuffer block, Client client, Account[] clientAccounts) {
+        writeString(block, client.getId());
+        writeString(block, client.getFullName());
+        writeString(block, client.getPhone());
+        writeString(block, client.getUsername());
+        writeString(block, client.getPassword());
+        block.putInt(clientAccounts.length);
+        for (Account account : clientAccounts) {
+            writeString(block, account.getId());
+            writeString(block, account.getAccountNumber());
+            writeString(block, account.getCardNumber());
+            block.putLong(account.getBalanceKopecks());
+        }
+    }
+
+    // Клиент, не помещающийся в пустой блок, пишется в буфер увеличенного размера
+    private static ByteBuffer writeOversized(ByteBuffer block, Client client, Account[] clientAccounts) {
+        while (true) {
+            try {
+                writeClient(block, client, clientAccounts);
+                return block;
+            } catch (BufferOverflowException e) {
+                ByteBuffer larger = ByteBuffer.allocate(block.capacity() * 2);
+                block.position(0);
+                block = larger;
+            }
+        }
+    }
+
+    private static void writeBlock(FileChannel out, ByteBuffer block, int blockClients) throws IOException {
+        block.flip();
+        CRC32C crc = new CRC32C();
+        crc.update(block.array(), 0, block.limit());
+
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE)
+                .putInt(block.limit()).putInt(blockClients).putInt((int) crc.getValue())
+                .flip();
+        ByteBuffer[] buffers = {header, block};
+        while (block.hasRemaining()) {
+            out.write(buffers);
+        }
+        block.clear();
+    }
+
+    private static void writeString(ByteBuffer block, String value) {
+        if (value == null) {
+            block.putShort((short) NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING) {
+            throw new IllegalArgumentException("Слишком длинная строка для снимка: " + bytes.length + " байт");
+        }
+        block.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer block) {
+        int length = Short.toUnsignedInt(block.getShort());
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        block.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
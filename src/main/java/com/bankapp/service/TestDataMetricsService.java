@@ -0,0 +1,55 @@
+package com.bankapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class TestDataMetricsService {
+
+    // Счётчики
+    private final Counter generatedClients;
+    private final Counter generatedAccounts;
+    private final Counter registrationErrors;
+
+    // Таймеры
+    private final Timer generationTimer;
+
+    // Gauge для скорости последней генерации (клиентов в секунду)
+    private final AtomicLong generationThroughput = new AtomicLong();
+
+    public TestDataMetricsService(MeterRegistry registry) {
+        // Инициализация счётчиков
+        this.generatedClients = Counter.builder("bankapp.testdata.clients.generated")
+                .description("Количество сгенерированных тестовых клиентов").register(registry);
+
+        this.generatedAccounts = Counter.builder("bankapp.testdata.accounts.generated")
+                .description("Количество сгенерированных тестовых счетов").register(registry);
+
+        this.registrationErrors = Counter.builder("bankapp.testdata.registration.errors")
+                .description("Количество ошибок регистрации тестовых клиентов в authmock").register(registry);
+
+        // Инициализация таймеров
+        this.generationTimer = Timer.builder("bankapp.testdata.generation.duration")
+                .description("Время генерации тестовых данных").register(registry);
+
+        // Инициализация Gauge
+        Gauge.builder("bankapp.testdata.generation.throughput", generationThroughput, AtomicLong::get)
+                .description("Скорость генерации тестовых данных, клиентов в секунду")
+                .register(registry);
+    }
+
+    // Геттеры
+    public Counter getGeneratedClients() { return generatedClients; }
+    public Counter getGeneratedAccounts() { return generatedAccounts; }
+    public Counter getRegistrationErrors() { return registrationErrors; }
+    public Timer getGenerationTimer() { return generationTimer; }
+
+    public void setGenerationThroughput(long clientsPerSecond) {
+        generationThroughput.set(clientsPerSecond);
+    }
+}
@@ -0,0 +1,168 @@
+package com.bankapp.service;
+
+import com.bankapp.model.TransactionRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * История операций по счетам в кольцевых буферах фиксированного размера.
+ * <p>
+ * Каждому счету при первом переводе выделяется буфер на history.per-account записей; новые
+ * записи вытесняют самые старые. Общее число записей ограничено history.max-entries: когда
+ * буферы для новых счетов заканчиваются, операции по таким счетам не записываются и
+ * учитываются в метрике bankapp.transaction.history.dropped.
+ * <p>
+ * Запись по счету выполняется под блокировками перевода в {@link TransferEngine}, поэтому у
+ * буфера всегда один писатель. Чтение идёт без блокировок: читатель копирует записи и
+ * отбрасывает те, которые писатель мог перезаписать во время копирования.
+ * История хранится только в памяти и после перезапуска начинается заново.
+ */
+@Component
+public class TransactionHistory {
+
+    private final TransactionMetricsService transactionMetrics;
+    private final boolean enabled;
+    private final int capacity;
+    private final long maxAccounts;
+
+    private final ConcurrentMap<String, Ring> rings = new ConcurrentHashMap<>();
+    private final AtomicLong allocatedRings = new AtomicLong();
+
+    private static final class Ring {
+        final long[] timestamps;
+        final long[] amounts;
+        final long[] balances;
+        final String[] counterparties;
+
+        // Количество записей за всё время; слот записи - written % capacity
+        volatile long written;
+        // Отметка времени последней записи; меняется только писателем
+        long lastTimestamp;
+
+        Ring(int capacity) {
+            timestamps = new long[capacity];
+            amounts = new long[capacity];
+            balances = new long[capacity];
+            counterparties = new String[capacity];
+        }
+    }
+
+    public TransactionHistory(TransactionMetricsService transactionMetrics,
+                              @Value("${history.enabled:true}") boolean enabled,
+                              @Value("${history.per-account:64}") int capacity,
+                              @Value("${history.max-entries:10000000}") long maxEntries) {
+        this.transactionMetrics = transactionMetrics;
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.maxAccounts = maxEntries / this.capacity;
+        transactionMetrics.bindHistory(allocatedRings::get);
+    }
+
+    // Вызывается под блокировками обоих счетов перевода
+    public void record(String from, String to, long amountKopecks, long fromBalance, long toBalance) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        append(from, now, -amountKopecks, to, fromBalance);
+        append(to, now, amountKopecks, from, toBalance);
+    }
+
+    // Операция по одному счету межузлового перевода; вызывается под блокировкой счета
+    public void record(String accountNumber, String counterparty, long signedAmountKopecks, long balance) {
+        if (!enabled) {
+            return;
+        }
+        append(accountNumber, System.currentTimeMillis(), signedAmountKopecks, counterparty, balance);
+    }
+
+    /**
+     * Записи по счету от новых к старым с отметкой времени в [from, to); null - без ограничения.
+     */
+    public List<TransactionRecord> find(String accountNumber, Instant from, Instant to, int limit) {
+        Ring ring = rings.get(accountNumber);
+        if (ring == null || limit <= 0) {
+            return List.of();
+        }
+        long fromMillis = from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+        long toMillis = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+
+        long written = ring.written;
+        long oldest = Math.max(0, written - capacity);
+        int max = (int) Math.min(limit, written - oldest);
+        long[] indexes = new long[max];
+        long[] timestamps = new long[max];
+        long[] amounts = new long[max];
+        long[] balances = new long[max];
+        String[] counterparties = new String[max];
+
+        int count = 0;
+        for (long i = written - 1; i >= oldest && count < max; i--) {
+            int slot = (int) (i % capacity);
+            long timestamp = ring.timestamps[slot];
+            if (timestamp < fromMillis) {
+                break;
+            }
+            if (timestamp >= toMillis) {
+                continue;
+            }
+            indexes[count] = i;
+            timestamps[count] = timestamp;
+            amounts[count] = ring.amounts[slot];
+            balances[count] = ring.balances[slot];
+            counterparties[count] = ring.counterparties[slot];
+            count++;
+        }
+
+        // Записи старше нового начала кольца могли быть перезаписаны во время копирования. Пока писатель
+        // заполняет запись written, он уже перезаписывает слот записи written - capacity, поэтому её тоже отбрасываем
+        VarHandle.acquireFence();
+        long valid = ring.written - capacity + 1;
+        List<TransactionRecord> records = new ArrayList<>(count);
+        for (int k = 0; k < count && indexes[k] >= valid; k++) {
+            long amount = amounts[k];
+            records.add(new TransactionRecord(Instant.ofEpochMilli(timestamps[k]),
+                    amount < 0 ? TransactionRecord.Direction.DEBIT : TransactionRecord.Direction.CREDIT,
+                    Math.abs(amount) / 100.0, counterparties[k], balances[k] / 100.0));
+        }
+        return records;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void append(String accountNumber, long timestamp, long amount, String counterparty, long balance) {
+        Ring ring = rings.get(accountNumber);
+        if (ring == null) {
+            ring = rings.computeIfAbsent(accountNumber, number -> allocatedRings.incrementAndGet() <= maxAccounts
+                    ? new Ring(capacity) : null);
+            if (ring == null) {
+                allocatedRings.decrementAndGet();
+                transactionMetrics.getHistoryDropped().increment();
+                return;
+            }
+        }
+
+        // Часы могут идти назад (коррекция времени): отметки в кольце не убывают, поэтому поиск
+        // по времени останавливается на первой записи старше начала интервала
+        timestamp = Math.max(timestamp, ring.lastTimestamp);
+        ring.lastTimestamp = timestamp;
+
+        long written = ring.written;
+        int slot = (int) (written % capacity);
+        ring.timestamps[slot] = timestamp;
+        ring.amounts[slot] = amount;
+        ring.balances[slot] = balance;
+        ring.counterparties[slot] = counterparty;
+        ring.written = written + 1;
+    }
+}
@@ -1,76 +1,157 @@
 package com.bankapp.service;
 
+import com.bankapp.util.AdaptiveConcurrencyLimit;
+import com.bankapp.util.ExpiringCache;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
 
+// Метрики переводов, не покрываемые @Instrumented на методах TransactionController
 @Component
 public class TransactionMetricsService {
 
+    private final MeterRegistry registry;
+
     // Счётчики
-    private final Counter selectRecipientCalls;
-    private final Counter transferCalls;
-    private final Counter getAllClientsCalls;
+    private final Counter transferBatchItems;
+    private final Counter streamClientsCalls;
+    private final Counter historyDropped;
+    private final Counter admissionRateLimited;
+    private final Counter admissionOverloaded;
+    private final Counter clientsCacheHits;
+    private final Counter clientsCacheNotModified;
+    private final Counter clientsCacheMisses;
+    private final Counter clientsSerializationSaved;
 
     // Таймеры
-    private final Timer selectRecipientTimer;
-    private final Timer transferTimer;
-    private final Timer getAllClientsTimer;
+    private final Timer transferLockWaitTimer;
+    private final Timer streamClientsTimer;
+    private final Timer clientsSerializationTimer;
 
-    // Gauge для текущего количества переводов
-    private final ConcurrentMap<String, Integer> currentTransfers = new ConcurrentHashMap<>();
+    // Распределение размеров пакетов переводов
+    private final DistributionSummary transferBatchSize;
 
     public TransactionMetricsService(MeterRegistry registry) {
+        this.registry = registry;
+
         // Инициализация счётчиков
-        this.selectRecipientCalls = Counter.builder("bankapp.transaction.select_recipient.calls")
-                .description("Количество вызовов метода выбора получателя перевода").register(registry);
+        this.transferBatchItems = Counter.builder("bankapp.transaction.transfer.batch.items")
+                .description("Количество операций, обработанных пакетными переводами").register(registry);
 
-        this.transferCalls = Counter.builder("bankapp.transaction.transfer.calls")
-                .description("Количество вызовов метода перевода средств").register(registry);
+        this.streamClientsCalls = Counter.builder("bankapp.transaction.clients.stream.calls")
+                .description("Количество вызовов потоковой выгрузки клиентов").register(registry);
 
-        this.getAllClientsCalls = Counter.builder("bankapp.transaction.clients.all.calls")
-                .description("Количество вызовов получения списка клиентов в TransactionController").register(registry);
+        this.historyDropped = Counter.builder("bankapp.transaction.history.dropped")
+                .description("Записи истории, не сохранённые из-за ограничения history.max-entries").register(registry);
 
-        // Инициализация таймеров
-        this.selectRecipientTimer = Timer.builder("bankapp.transaction.select_recipient.duration")
-                .description("Время выполнения запроса выбора получателя").register(registry);
+        this.admissionRateLimited = Counter.builder("bankapp.transaction.admission.rejected")
+                .description("Запросы, отклонённые контролем допуска").tag("reason", "rate_limited")
+                .register(registry);
 
-        this.transferTimer = Timer.builder("bankapp.transaction.transfer.duration")
-                .description("Время выполнения запроса перевода").register(registry);
+        this.admissionOverloaded = Counter.builder("bankapp.transaction.admission.rejected")
+                .description("Запросы, отклонённые контролем допуска").tag("reason", "overloaded")
+                .register(registry);
+
+        this.clientsCacheHits = Counter.builder("bankapp.transaction.clients.cache.requests")
+                .description("Запросы полного списка клиентов по результату обращения к кэшу").tag("result", "hit")
+                .register(registry);
 
-        this.getAllClientsTimer = Timer.builder("bankapp.transaction.clients.all.duration")
-                .description("Время выполнения запроса получения всех клиентов").register(registry);
+        this.clientsCacheNotModified = Counter.builder("bankapp.transaction.clients.cache.requests")
+                .description("Запросы полного списка клиентов по результату обращения к кэшу").tag("result", "not_modified")
+                .register(registry);
 
-        // Инициализация Gauge
-        Gauge.builder("bankapp.transaction.current_transfers", currentTransfers, map -> map.getOrDefault("in_progress", 0))
-                .description("Текущее количество активных переводов")
+        this.clientsCacheMisses = Counter.builder("bankapp.transaction.clients.cache.requests")
+                .description("Запросы полного списка клиентов по результату обращения к кэшу").tag("result", "miss")
                 .register(registry);
 
-        // Начальное значение
-        currentTransfers.put("in_progress", 0);
+        this.clientsSerializationSaved = Counter.builder("bankapp.transaction.clients.cache.serialization.saved")
+                .description("Оценка времени сериализации, сэкономленного кэшем списка клиентов")
+                .baseUnit("seconds").register(registry);
+
+        // Инициализация таймеров
+        this.transferLockWaitTimer = Timer.builder("bankapp.transaction.transfer.lock_wait")
+                .description("Время ожидания блокировок счетов при переводе").register(registry);
+
+        this.streamClientsTimer = Timer.builder("bankapp.transaction.clients.stream.duration")
+                .description("Время потоковой выгрузки клиентов").register(registry);
+
+        this.clientsSerializationTimer = Timer.builder("bankapp.transaction.clients.cache.serialization")
+                .description("Время сериализации полного списка клиентов при промахе кэша").register(registry);
+
+        this.transferBatchSize = DistributionSummary.builder("bankapp.transaction.transfer.batch.size")
+                .description("Количество операций в одном пакетном переводе").register(registry);
     }
 
     // Геттеры для счётчиков
-    public Counter getSelectRecipientCalls() { return selectRecipientCalls; }
-    public Counter getTransferCalls() { return transferCalls; }
-    public Counter getGetAllClientsCalls() { return getAllClientsCalls; }
+    public Counter getTransferBatchItems() { return transferBatchItems; }
+    public Counter getStreamClientsCalls() { return streamClientsCalls; }
+    public Counter getHistoryDropped() { return historyDropped; }
+    public Counter getAdmissionRateLimited() { return admissionRateLimited; }
+    public Counter getAdmissionOverloaded() { return admissionOverloaded; }
+    public Counter getClientsCacheHits() { return clientsCacheHits; }
+    public Counter getClientsCacheNotModified() { return clientsCacheNotModified; }
+    public Counter getClientsCacheMisses() { return clientsCacheMisses; }
+    public Counter getClientsSerializationSaved() { return clientsSerializationSaved; }
 
     // Геттеры для таймеров
-    public Timer getSelectRecipientTimer() { return selectRecipientTimer; }
-    public Timer getTransferTimer() { return transferTimer; }
-    public Timer getGetAllClientsTimer() { return getAllClientsTimer; }
+    public Timer getTransferLockWaitTimer() { return transferLockWaitTimer; }
+    public Timer getStreamClientsTimer() { return streamClientsTimer; }
+    public Timer getClientsSerializationTimer() { return clientsSerializationTimer; }
+
+    // Геттеры для распределений
+    public DistributionSummary getTransferBatchSize() { return transferBatchSize; }
+
+    // Gauge для количества действующих выборов получателя
+    public void bindSelections(ExpiringCache<?, ?> selections) {
+        Gauge.builder("bankapp.transaction.selections.active", selections, ExpiringCache::size)
+                .description("Текущее количество выбранных получателей перевода")
+                .register(registry);
+    }
+
+    // Gauge для количества счетов, которым выделен буфер истории
+    public void bindHistory(LongSupplier accounts) {
+        Gauge.builder("bankapp.transaction.history.accounts", accounts::getAsLong)
+                .description("Количество счетов с буфером истории операций")
+                .register(registry);
+    }
+
+    // Регистрация метрик кэша результатов по ключам идемпотентности
+    public void bindIdempotency(ExpiringCache<?, ?> results) {
+        FunctionCounter.builder("bankapp.transaction.idempotency.hits", results, ExpiringCache::hitCount)
+                .description("Повторные запросы, получившие сохранённый результат перевода")
+                .register(registry);
+
+        FunctionCounter.builder("bankapp.transaction.idempotency.misses", results, ExpiringCache::missCount)
+                .description("Запросы с новым ключом идемпотентности, выполнившие перевод")
+                .register(registry);
 
-    // Управление Gauge
-    public void incrementTransfers() {
-        currentTransfers.compute("in_progress", (k, v) -> v == null ? 1 : v + 1);
+        FunctionCounter.builder("bankapp.transaction.idempotency.evictions", results, ExpiringCache::evictionCount)
+                .description("Количество вытесненных результатов по ключам идемпотентности")
+                .register(registry);
+
+        Gauge.builder("bankapp.transaction.idempotency.size", results, ExpiringCache::size)
+                .description("Текущее количество сохранённых результатов по ключам идемпотентности")
+                .register(registry);
     }
 
-    public void decrementTransfers() {
-        currentTransfers.compute("in_progress", (k, v) -> v == null || v <= 0 ? 0 : v - 1);
+    // Регистрация метрик контроля допуска: адаптивный предел и число клиентов с лимитом частоты
+    public void bindAdmission(AdaptiveConcurrencyLimit limit, ExpiringCache<?, ?> clientBuckets) {
+        Gauge.builder("bankapp.transaction.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Текущий предел одновременно выполняющихся запросов")
+                .register(registry);
+
+        Gauge.builder("bankapp.transaction.admission.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Количество запросов, допущенных к выполнению")
+                .register(registry);
+
+        Gauge.builder("bankapp.transaction.admission.clients", clientBuckets, ExpiringCache::size)
+                .description("Количество клиентов с отслеживаемым лимитом частоты запросов")
+                .register(registry);
     }
-}
\ No newline at end of file
+}
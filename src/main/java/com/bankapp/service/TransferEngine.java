@@ -0,0 +1,180 @@
+package com.bankapp.service;
+
+import com.bankapp.metrics.RequestPhases;
+import com.bankapp.model.Account;
+import com.bankapp.repository.DataVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Атомарное списание и зачисление средств между счетами.
+ * <p>
+ * Счета защищаются полосатыми блокировками (lock striping): номер счета отображается
+ * на одну из фиксированного числа блокировок. Обе блокировки перевода берутся в порядке
+ * возрастания индекса полосы, поэтому встречные переводы не могут взаимно заблокироваться.
+ * <p>
+ * Перевод записывается в журнал под теми же блокировками до изменения балансов, поэтому
+ * порядок записей по каждому счету совпадает с порядком применения, а при ошибке журнала
+ * балансы не меняются. Подтверждения записи ждём уже после снятия блокировок.
+ * <p>
+ * История операций по счетам пополняется там же, под блокировками перевода.
+ * <p>
+ * Ожидание блокировок, работа под ними и ожидание журнала учитываются как фазы
+ * {@link RequestPhases}.
+ */
+@Service
+public class TransferEngine {
+
+    public enum Status {
+        OK,
+        INVALID_AMOUNT,
+        INSUFFICIENT_FUNDS
+    }
+
+    private final TransactionMetricsService transactionMetrics;
+    private final TransferJournal transferJournal;
+    private final TransactionHistory transactionHistory;
+    private final DataVersion dataVersion;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public TransferEngine(TransactionMetricsService transactionMetrics, TransferJournal transferJournal,
+                          TransactionHistory transactionHistory, DataVersion dataVersion,
+                          @Value("${transfer.lock-stripes:1024}") int stripeCount) {
+        this.transactionMetrics = transactionMetrics;
+        this.transferJournal = transferJournal;
+        this.transactionHistory = transactionHistory;
+        this.dataVersion = dataVersion;
+
+        // Количество полос округляется до степени двойки, чтобы индекс считался маской
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public Status transfer(Account from, Account to, long amountKopecks) {
+        return transfer(from, to, amountKopecks, true);
+    }
+
+    // Неблокирующий вариант: результат готов, когда журнал подтвердил запись перевода
+    public CompletableFuture<Status> transferAsync(Account from, Account to, long amountKopecks) {
+        Status status = transfer(from, to, amountKopecks, false);
+        if (status != Status.OK) {
+            return CompletableFuture.completedFuture(status);
+        }
+        return transferJournal.durable(transferJournal.position()).thenApply(ignored -> status);
+    }
+
+    // Без ожидания журнала: пакетные переводы дожидаются его один раз на весь пакет
+    Status transfer(Account from, Account to, long amountKopecks, boolean awaitJournal) {
+        if (amountKopecks <= 0) {
+            return Status.INVALID_AMOUNT;
+        }
+
+        int first = stripeIndex(from.getAccountNumber());
+        int second = stripeIndex(to.getAccountNumber());
+        if (first > second) {
+            int tmp = first;
+            first = second;
+            second = tmp;
+        }
+
+        long journalPosition = -1;
+        long waitStart = System.nanoTime();
+        stripes[first].lock();
+        try {
+            if (second != first) {
+                stripes[second].lock();
+            }
+            long lockedAt = System.nanoTime();
+            try {
+                transactionMetrics.getTransferLockWaitTimer().record(lockedAt - waitStart, TimeUnit.NANOSECONDS);
+                RequestPhases.record(RequestPhases.LOCK_WAIT, lockedAt - waitStart);
+
+                if (from.getBalanceKopecks() < amountKopecks) {
+                    return Status.INSUFFICIENT_FUNDS;
+                }
+                // Представления одного счета в режиме columnar - разные объекты, поэтому сравниваем номера
+                if (!from.getAccountNumber().equals(to.getAccountNumber())) {
+                    long fromBalance = from.getBalanceKopecks() - amountKopecks;
+                    long toBalance = to.getBalanceKopecks() + amountKopecks;
+                    // Сначала журнал: если он недоступен, балансы остаются прежними
+                    journalPosition = transferJournal.appendTransfer(from, to, amountKopecks, fromBalance, toBalance,
+                            () -> {
+                                from.setBalanceKopecks(fromBalance);
+                                to.setBalanceKopecks(toBalance);
+                                dataVersion.increment();
+                                transactionHistory.record(from.getAccountNumber(), to.getAccountNumber(),
+                                        amountKopecks, fromBalance, toBalance);
+                            });
+                }
+            } finally {
+                if (second != first) {
+                    stripes[second].unlock();
+                }
+                RequestPhases.record(RequestPhases.BALANCE_UPDATE, System.nanoTime() - lockedAt);
+            }
+        } finally {
+            stripes[first].unlock();
+        }
+
+        if (awaitJournal && journalPosition > 0) {
+            long journalStart = System.nanoTime();
+            transferJournal.awaitDurable(journalPosition);
+            RequestPhases.record(RequestPhases.JOURNAL, System.nanoTime() - journalStart);
+        }
+        return Status.OK;
+    }
+
+    /**
+     * Изменение баланса одного счета: списание (отрицательная сумма) или зачисление половины
+     * межузлового перевода. Вторую половину выполняет узел-владелец другого счета.
+     */
+    public Status adjust(Account account, long deltaKopecks, String counterparty) {
+        if (deltaKopecks == 0) {
+            return Status.INVALID_AMOUNT;
+        }
+
+        long journalPosition;
+        ReentrantLock stripe = stripes[stripeIndex(account.getAccountNumber())];
+        long waitStart = System.nanoTime();
+        stripe.lock();
+        long lockedAt = System.nanoTime();
+        try {
+            transactionMetrics.getTransferLockWaitTimer().record(lockedAt - waitStart, TimeUnit.NANOSECONDS);
+            RequestPhases.record(RequestPhases.LOCK_WAIT, lockedAt - waitStart);
+
+            long balance = account.getBalanceKopecks() + deltaKopecks;
+            if (balance < 0) {
+                return Status.INSUFFICIENT_FUNDS;
+            }
+            journalPosition = transferJournal.appendBalance(account, deltaKopecks, balance, () -> {
+                account.setBalanceKopecks(balance);
+                dataVersion.increment();
+                transactionHistory.record(account.getAccountNumber(), counterparty, deltaKopecks, balance);
+            });
+        } finally {
+            stripe.unlock();
+            RequestPhases.record(RequestPhases.BALANCE_UPDATE, System.nanoTime() - lockedAt);
+        }
+
+        if (journalPosition > 0) {
+            long journalStart = System.nanoTime();
+            transferJournal.awaitDurable(journalPosition);
+            RequestPhases.record(RequestPhases.JOURNAL, System.nanoTime() - journalStart);
+        }
+        return Status.OK;
+    }
+
+    private int stripeIndex(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
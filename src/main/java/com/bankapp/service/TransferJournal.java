@@ -0,0 +1,679 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Client;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.repository.ClientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал упреждающей записи (write-ahead log) для создания клиентов, счетов и переводов.
+ * <p>
+ * Записи складываются в буфер в памяти, а отдельный поток сбрасывает всё накопленное
+ * в файл одной записью через FileChannel и одним fsync (group commit). Уровень надёжности
+ * определяет, когда запись считается подтверждённой:
+ * <ul>
+ *     <li>NONE - запись без fsync: переживает падение процесса, но не ОС;</li>
+ *     <li>PERIODIC - fsync раз в flush-interval-ms, вызывающий поток не ждёт;</li>
+ *     <li>SYNC - вызывающий поток ждёт fsync группы, в которую попала его запись.</li>
+ * </ul>
+ * Формат записи: длина (int), тип (byte), числа (long), строки (short длина + UTF-8), CRC32C (int).
+ * <p>
+ * Записи идемпотентны: перевод хранит итоговые балансы обоих счетов, изменение баланса одного
+ * счета при межузловом переводе - итоговый баланс этого счета, а повторное создание
+ * существующего клиента или счета пропускается. Поэтому при старте журнал проигрывается
+ * с позиции, сохранённой в снимке {@link SnapshotStore}, поверх загруженного снимка,
+ * даже если снимок снимался без остановки переводов. Недописанный хвост отбрасывается.
+ * Снимок публикуется только после сброса журнала до его позиции, поэтому журнал короче
+ * позиции снимка означает потерю записей, и запуск прерывается.
+ */
+@Component
+public class TransferJournal implements DisposableBean {
+
+    public enum Durability {
+        NONE,
+        PERIODIC,
+        SYNC
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TransferJournal.class);
+
+    // Заголовок файла: "BJNL", версия формата и случайный идентификатор журнала
+    private static final int MAGIC = 0x424A4E4C;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+
+    // Типы записей
+    private static final byte CLIENT = 1;
+    private static final byte ACCOUNT = 2;
+    private static final byte TRANSFER = 3;
+    private static final byte BALANCE = 4;
+
+    // Ограничения размера, чтобы любая запись гарантированно помещалась в буфер
+    private static final int MAX_FIELD_LENGTH = 4096;
+    private static final int MIN_BUFFER_SIZE = 64 * 1024;
+
+    private final ClientRepository clientRepository;
+    private final AccountRepository accountRepository;
+    private final JournalMetricsService journalMetrics;
+
+    private final boolean enabled;
+    private final Durability durability;
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Создания и переводы держат разделяемую блокировку от записи в журнал до публикации в репозиториях,
+    // чтобы позиция снимка не оказалась между записью и публикацией; без журнала - на время публикации,
+    // чтобы снимок не застал перевод применённым к одному счету
+    private final ReentrantReadWriteLock publishBarrier = new ReentrantReadWriteLock();
+    private final Condition dataAvailable = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    private FileChannel channel;
+    private Thread flusher;
+    private long journalId;
+
+    // Буфер, принимающий новые записи, и буфер, который сейчас пишется на диск
+    private ByteBuffer active;
+    private ByteBuffer standby;
+    private int activeRecords;
+
+    // Позиции в файле: конец добавленных записей и конец записанных на диск
+    private long appendedPosition;
+    private volatile long durablePosition;
+
+    // Неблокирующие ожидания подтверждения в порядке позиции
+    private record Waiter(long position, CompletableFuture<Void> future) {
+    }
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(Comparator.comparingLong(Waiter::position));
+
+    private boolean flushRequested;
+    private boolean running;
+    private boolean closed;
+    private IOException failure;
+
+    private long replayedRecords;
+
+    public TransferJournal(ClientRepository clientRepository, AccountRepository accountRepository,
+                           JournalMetricsService journalMetrics, SnapshotStore snapshotStore,
+                           @Value("${journal.enabled:false}") boolean enabled,
+                           @Value("${journal.path:data/transfer-journal.bin}") String path,
+                           @Value("${journal.durability:PERIODIC}") Durability durability,
+                           @Value("${journal.flush-interval-ms:10}") long flushIntervalMs,
+                           @Value("${journal.buffer-size:1048576}") int bufferSize) throws IOException {
+        this.clientRepository = clientRepository;
+        this.accountRepository = accountRepository;
+        this.journalMetrics = journalMetrics;
+        this.enabled = enabled;
+        this.durability = durability;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+
+        if (enabled) {
+            open(Path.of(path), Math.max(MIN_BUFFER_SIZE, bufferSize), snapshotStore.getLoaded().orElse(null));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getJournalId() {
+        return journalId;
+    }
+
+    // Запись создания клиента; publish делает клиента видимым в репозиториях
+    public long appendClient(Client client, Runnable publish) {
+        if (!enabled) {
+            return publishOnly(publish);
+        }
+        return appendAndPublish(encode(CLIENT, new long[0], client.getId(), client.getFullName(), client.getPhone(),
+                client.getUsername(), client.getPassword()), publish);
+    }
+
+    // Запись создания счета; publish делает счет видимым в репозиториях
+    public long appendAccount(String clientId, Account account, Runnable publish) {
+        if (!enabled) {
+            return publishOnly(publish);
+        }
+        return appendAndPublish(encode(ACCOUNT, new long[]{account.getBalanceKopecks()}, clientId, account.getId(),
+                account.getAccountNumber(), account.getCardNumber()), publish);
+    }
+
+    // Вызывается под блокировками обоих счетов; fromBalance и toBalance - балансы после перевода,
+    // publish применяет их и выполняется, только если запись добавлена в журнал
+    public long appendTransfer(Account from, Account to, long amountKopecks, long fromBalance, long toBalance,
+                               Runnable publish) {
+        if (!enabled) {
+            return publishOnly(publish);
+        }
+        return appendAndPublish(encode(TRANSFER, new long[]{amountKopecks, fromBalance, toBalance},
+                from.getAccountNumber(), to.getAccountNumber()), publish);
+    }
+
+    // Изменение баланса одного счета (межузловой перевод); вызывается под блокировкой счета
+    public long appendBalance(Account account, long deltaKopecks, long balanceKopecks, Runnable publish) {
+        if (!enabled) {
+            return publishOnly(publish);
+        }
+        return appendAndPublish(encode(BALANCE, new long[]{deltaKopecks, balanceKopecks}, account.getAccountNumber()),
+                publish);
+    }
+
+    // Действие, выполняемое при остановленной публикации изменений
+    @FunctionalInterface
+    public interface PausedAction<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Выполняет действие, пока создания и переводы ждут публикации: все начатые изменения
+     * уже применены целиком, новые не применяются. Нужно для согласованного снимка без журнала,
+     * когда неполный перевод в снимке нечем исправить.
+     */
+    public <T> T whilePublishingPaused(PausedAction<T> action) throws IOException {
+        publishBarrier.writeLock().lock();
+        try {
+            return action.run();
+        } finally {
+            publishBarrier.writeLock().unlock();
+        }
+    }
+
+    // Позиция для снимка: все записи до неё уже применены к репозиториям
+    public long snapshotPosition() {
+        if (!enabled) {
+            return 0;
+        }
+        publishBarrier.writeLock().lock();
+        try {
+            return position();
+        } finally {
+            publishBarrier.writeLock().unlock();
+        }
+    }
+
+    // Текущий конец журнала: позиция, которой достаточно дождаться для всех уже добавленных записей
+    public long position() {
+        if (!enabled) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ожидание подтверждения записи; ждёт только при уровне надёжности SYNC
+    public void awaitDurable(long position) {
+        if (enabled && durability == Durability.SYNC) {
+            waitFlushed(position, false);
+        }
+    }
+
+    // Неблокирующее ожидание подтверждения записи (для реактивных запросов); ждёт только при уровне SYNC
+    public CompletableFuture<Void> durable(long position) {
+        if (!enabled || durability != Durability.SYNC) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (durablePosition >= position) {
+                return CompletableFuture.completedFuture(null);
+            }
+            IllegalStateException error = failureException();
+            if (error != null) {
+                return CompletableFuture.failedFuture(error);
+            }
+            waiters.add(new Waiter(position, future));
+        } finally {
+            lock.unlock();
+        }
+        return future.whenComplete((ignored, e) ->
+                journalMetrics.getCommitWaitTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    // Принудительный сброс всех добавленных записей на диск независимо от уровня надёжности
+    public void sync() {
+        sync(position());
+    }
+
+    // Сброс на диск записей до позиции, в том числе при уровне NONE, где поток записи не вызывает fsync
+    public void sync(long position) {
+        if (!enabled) {
+            return;
+        }
+        waitFlushed(position, true);
+        if (durability == Durability.NONE) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка сброса журнала переводов на диск", e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            dataAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+        if (failure == null) {
+            channel.force(false);
+        }
+        channel.close();
+    }
+
+    private void open(Path file, int bufferSize, SnapshotStore.Info snapshot) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long validEnd;
+        if (channel.size() < HEADER_SIZE) {
+            channel.truncate(0);
+            journalId = new SecureRandom().nextLong();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(journalId).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            validEnd = HEADER_SIZE;
+        } else {
+            validEnd = replay(file, snapshot);
+        }
+
+        if (validEnd < channel.size()) {
+            log.warn("⚠️ Отброшен повреждённый хвост журнала: {} байт", channel.size() - validEnd);
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+
+        appendedPosition = validEnd;
+        durablePosition = validEnd;
+        active = ByteBuffer.allocateDirect(bufferSize);
+        standby = ByteBuffer.allocateDirect(bufferSize);
+        running = true;
+
+        journalMetrics.bindJournalSize(() -> durablePosition);
+
+        flusher = new Thread(this::flushLoop, "transfer-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("📒 Журнал переводов: {}, надёжность {}", file.toAbsolutePath(), durability);
+    }
+
+    // Публикация без журнала; барьер нужен, чтобы снимок не застал её наполовину
+    private long publishOnly(Runnable publish) {
+        publishBarrier.readLock().lock();
+        try {
+            publish.run();
+            return 0;
+        } finally {
+            publishBarrier.readLock().unlock();
+        }
+    }
+
+    // Запись в журнал, затем публикация; при ошибке журнала данные в памяти не меняются
+    private long appendAndPublish(byte[] record, Runnable publish) {
+        publishBarrier.readLock().lock();
+        try {
+            long position = append(record);
+            publish.run();
+            return position;
+        } finally {
+            publishBarrier.readLock().unlock();
+        }
+    }
+
+    private long append(byte[] record) {
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Журнал переводов закрыт");
+            }
+            checkFailure();
+
+            if (active.remaining() < record.length) {
+                // Буфер заполнен: просим поток записи сбросить его и ждём обмена буферов
+                journalMetrics.getBufferFullWaits().increment();
+                flushRequested = true;
+                dataAvailable.signal();
+                while (active.remaining() < record.length) {
+                    flushed.awaitUninterruptibly();
+                    checkFailure();
+                }
+            }
+
+            active.put(record);
+            activeRecords++;
+            appendedPosition += record.length;
+            if (durability == Durability.SYNC) {
+                dataAvailable.signal();
+            }
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void waitFlushed(long position, boolean requestFlush) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (requestFlush && durablePosition < position) {
+                flushRequested = true;
+                dataAvailable.signal();
+            }
+            while (durablePosition < position) {
+                checkFailure();
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        journalMetrics.getCommitWaitTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void checkFailure() {
+        IllegalStateException error = failureException();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private IllegalStateException failureException() {
+        if (failure != null) {
+            return new IllegalStateException("Журнал переводов недоступен", failure);
+        }
+        if (closed) {
+            return new IllegalStateException("Журнал переводов закрыт");
+        }
+        return null;
+    }
+
+    // Ожидания, дошедшие до подтверждённой позиции; вызывается под блокировкой
+    private List<Waiter> takeWaiters(long position) {
+        List<Waiter> ready = new ArrayList<>();
+        while (!waiters.isEmpty() && waiters.peek().position() <= position) {
+            ready.add(waiters.poll());
+        }
+        return ready;
+    }
+
+    // Поток записи: забирает накопленный буфер целиком и пишет его одной группой
+    private void flushLoop() {
+        try {
+            while (true) {
+                ByteBuffer batch;
+                int records;
+                long batchEnd;
+
+                lock.lock();
+                try {
+                    long deadline = System.nanoTime() + flushIntervalNanos;
+                    while (running && !readyToFlush(deadline)) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            // Период истёк без данных - начинаем новый
+                            deadline = System.nanoTime() + flushIntervalNanos;
+                            remaining = flushIntervalNanos;
+                        }
+                        dataAvailable.awaitNanos(remaining);
+                    }
+                    if (active.position() == 0) {
+                        return;
+                    }
+
+                    batch = active;
+                    active = standby;
+                    standby = batch;
+                    records = activeRecords;
+                    activeRecords = 0;
+                    flushRequested = false;
+                    batchEnd = appendedPosition;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                long start = System.nanoTime();
+                batch.flip();
+                int bytes = batch.remaining();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (durability != Durability.NONE) {
+                    channel.force(false);
+                }
+                batch.clear();
+
+                journalMetrics.getWriteTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                journalMetrics.getBatchRecords().record(records);
+                journalMetrics.getBatchBytes().record(bytes);
+
+                List<Waiter> ready;
+                lock.lock();
+                try {
+                    durablePosition = batchEnd;
+                    flushed.signalAll();
+                    ready = takeWaiters(batchEnd);
+                } finally {
+                    lock.unlock();
+                }
+                // Продолжения запросов выполняются вне блокировки журнала
+                for (Waiter waiter : ready) {
+                    waiter.future().complete(null);
+                }
+            }
+        } catch (IOException e) {
+            log.error("❌ Ошибка записи журнала переводов", e);
+            lock.lock();
+            try {
+                failure = e;
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            List<Waiter> failed;
+            IllegalStateException error;
+            lock.lock();
+            try {
+                closed = true;
+                flushed.signalAll();
+                failed = takeWaiters(Long.MAX_VALUE);
+                error = failureException();
+            } finally {
+                lock.unlock();
+            }
+            for (Waiter waiter : failed) {
+                waiter.future().completeExceptionally(error);
+            }
+        }
+    }
+
+    private boolean readyToFlush(long deadline) {
+        return active.position() > 0
+                && (durability == Durability.SYNC || flushRequested || System.nanoTime() >= deadline);
+    }
+
+    // Проигрывание журнала; возвращает позицию конца последней целой записи
+    private long replay(Path file, SnapshotStore.Info snapshot) throws IOException {
+        long start = System.nanoTime();
+        long position = HEADER_SIZE;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Неизвестный формат журнала: " + file);
+            }
+            journalId = in.readLong();
+
+            // Записи до позиции снимка уже отражены в нём
+            if (snapshot != null) {
+                if (snapshot.journalId() == journalId) {
+                    // Снимок публикуется только после сброса журнала до его позиции. Короткий журнал
+                    // означает потерю записей: проигрывание всего журнала откатило бы часть счетов
+                    if (snapshot.journalPosition() > channel.size()) {
+                        throw new IOException("Снимок опережает свой журнал: позиция снимка " +
+                                snapshot.journalPosition() + ", размер журнала " + channel.size() + ": " + file);
+                    }
+                    in.skipNBytes(snapshot.journalPosition() - HEADER_SIZE);
+                    position = snapshot.journalPosition();
+                } else {
+                    log.warn("⚠️ Снимок сделан для другого журнала, журнал проигрывается целиком");
+                }
+            }
+
+            CRC32C crc = new CRC32C();
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    // Длина вне допустимого диапазона означает повреждённый хвост
+                    if (length <= 0 || length > MIN_BUFFER_SIZE) {
+                        break;
+                    }
+                    if (payload.length < length) {
+                        payload = new byte[length];
+                    }
+                    in.readFully(payload, 0, length);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                apply(ByteBuffer.wrap(payload, 0, length));
+                position += Integer.BYTES + length + Integer.BYTES;
+                replayedRecords++;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        journalMetrics.getReplayTimer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        journalMetrics.getReplayedRecords().increment(replayedRecords);
+        log.info("📒 Из журнала восстановлено записей: {} за {} мс, клиентов: {}",
+                replayedRecords, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), clientRepository.count());
+        return position;
+    }
+
+    private void apply(ByteBuffer record) throws IOException {
+        byte type = record.get();
+
+        switch (type) {
+            case CLIENT -> {
+                Client client = new Client(readString(record), readString(record), readString(record),
+                        readString(record), readString(record));
+                if (clientRepository.findById(client.getId()).isEmpty()) {
+                    clientRepository.save(client);
+                }
+            }
+            case ACCOUNT -> {
+                long balance = record.getLong();
+                String clientId = readString(record);
+                Account account = new Account(readString(record), readString(record), readString(record), balance);
+                if (accountRepository.findByNumber(account.getAccountNumber()).isEmpty()) {
+                    clientRepository.findById(clientId).ifPresent(client -> clientRepository.addAccount(client, account));
+                    accountRepository.save(account);
+                }
+            }
+            case TRANSFER -> {
+                record.getLong();
+                long senderBalance = record.getLong();
+                long recipientBalance = record.getLong();
+                accountRepository.findByNumber(readString(record)).ifPresent(a -> a.setBalanceKopecks(senderBalance));
+                accountRepository.findByNumber(readString(record)).ifPresent(a -> a.setBalanceKopecks(recipientBalance));
+            }
+            case BALANCE -> {
+                record.getLong();
+                long balance = record.getLong();
+                accountRepository.findByNumber(readString(record)).ifPresent(a -> a.setBalanceKopecks(balance));
+            }
+            default -> throw new IOException("Неизвестный тип записи журнала: " + type);
+        }
+    }
+
+    private static byte[] encode(byte type, long[] values, String... fields) {
+        byte[][] encoded = new byte[fields.length][];
+        int payloadLength = 1 + values.length * Long.BYTES;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i] == null ? new byte[0] : fields[i].getBytes(StandardCharsets.UTF_8);
+            if (encoded[i].length > MAX_FIELD_LENGTH) {
+                throw new IllegalArgumentException("Слишком длинное поле записи журнала: " + encoded[i].length + " байт");
+            }
+            payloadLength += Short.BYTES + encoded[i].length;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + payloadLength + Integer.BYTES);
+        record.putInt(payloadLength).put(type);
+        for (long value : values) {
+            record.putLong(value);
+        }
+        for (byte[] field : encoded) {
+            record.putShort((short) field.length).put(field);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), Integer.BYTES, payloadLength);
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = Short.toUnsignedInt(record.getShort());
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,82 @@
+package com.bankapp.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Ограничение числа одновременно выполняющихся запросов, подстраиваемое по задержке (AIMD).
+ * <p>
+ * Пока запросы укладываются в {@code latencyThreshold}, предел растёт на 1/limit за каждый
+ * завершённый запрос (примерно на единицу за «окно» из limit запросов), но только когда
+ * текущая нагрузка занимает хотя бы половину предела. Медленный или неудачный запрос
+ * умножает предел на {@code backoffRatio}; уменьшение выполняется не чаще одного раза
+ * за latencyThreshold, чтобы пачка медленных ответов одного окна не обрушила предел до минимума.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Текущий предел: биты double, чтобы обновлять его одним CAS
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecreaseAt = new AtomicLong(System.nanoTime());
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                    long latencyThreshold, TimeUnit unit) {
+        if (minLimit < 1 || maxLimit < minLimit || !(backoffRatio > 0 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("Некорректные параметры ограничения одновременных запросов");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = unit.toNanos(latencyThreshold);
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(
+                Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+    }
+
+    // Занимает место под запрос; false - предел исчерпан, запрос нужно отклонить
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > getLimit()) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // Освобождает место и корректирует предел по времени выполнения и исходу запроса
+    public void release(long latencyNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        long now = System.nanoTime();
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            long last = lastDecreaseAt.get();
+            if (now - last >= latencyThresholdNanos && lastDecreaseAt.compareAndSet(last, now)) {
+                update(limit -> Math.max(minLimit, limit * backoffRatio));
+            }
+        } else if (current * 2 >= getLimit()) {
+            update(limit -> Math.min(maxLimit, limit + 1 / limit));
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        while (true) {
+            long bits = limitBits.get();
+            double next = change.applyAsDouble(Double.longBitsToDouble(bits));
+            if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
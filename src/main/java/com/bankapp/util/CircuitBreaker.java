@@ -0,0 +1,66 @@
+package com.bankapp.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Простой автоматический выключатель по числу последовательных ошибок.
+ * <p>
+ * После {@code failureThreshold} ошибок подряд переходит в OPEN и сразу отклоняет вызовы.
+ * По истечении {@code openDuration} пропускает один пробный вызов (HALF_OPEN):
+ * успех замыкает выключатель, ошибка снова размыкает его.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private volatile long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = unit.toNanos(openDuration);
+    }
+
+    // Разрешён ли вызов; в HALF_OPEN разрешение получает только один пробный вызов
+    public boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    // Возврат неиспользованного разрешения пробного вызова
+    public void releasePermission() {
+        state.compareAndSet(State.HALF_OPEN, State.OPEN);
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.compareAndSet(State.HALF_OPEN, State.CLOSED);
+    }
+
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            consecutiveFailures.set(0);
+            state.set(State.OPEN);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+}
@@ -0,0 +1,71 @@
+package com.bankapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Кольцо согласованного хеширования: ключ принадлежит узлу, чья ближайшая по часовой стрелке
+ * виртуальная точка следует за хешем ключа.
+ * <p>
+ * У каждого узла {@code virtualNodes} точек на кольце, поэтому ключи распределяются
+ * равномерно, а при добавлении или удалении узла переезжает только его доля ключей.
+ * Кольцо неизменяемо: поиск - двоичный поиск по отсортированному массиву без блокировок.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> nodes;
+    private final long[] tokens;
+    private final int[] owners;
+
+    public ConsistentHashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("Кольцу нужен хотя бы один узел и одна виртуальная точка");
+        }
+        this.nodes = List.copyOf(nodes);
+
+        int size = nodes.size() * virtualNodes;
+        long[][] points = new long[size][];
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                points[node * virtualNodes + v] = new long[]{hash(nodes.get(node) + "#" + v), node};
+            }
+        }
+        Arrays.sort(points, (a, b) -> Long.compare(a[0], b[0]));
+
+        this.tokens = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            tokens[i] = points[i][0];
+            owners[i] = (int) points[i][1];
+        }
+    }
+
+    // Индекс узла-владельца ключа в списке узлов
+    public int ownerOf(String key) {
+        int index = Arrays.binarySearch(tokens, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == tokens.length ? 0 : index];
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    // 64-битный FNV-1a по байтам UTF-8 с финальным перемешиванием MurmurHash3
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
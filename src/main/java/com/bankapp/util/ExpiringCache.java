@@ -0,0 +1,232 @@
+package com.bankapp.util;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Потокобезопасный кэш с временем жизни записей и ограничением размера.
+ * <p>
+ * Записи вытесняются в порядке добавления: при одинаковом TTL это совпадает с порядком
+ * истечения срока жизни, поэтому вытеснение не требует обхода всего кэша.
+ * {@link #getOrLoad} объединяет одновременные запросы по одному ключу: загрузку выполняет
+ * первый вызвавший поток, остальные ждут её результата. Загружающаяся запись не вытесняется
+ * и при переполнении, иначе одновременный запрос по тому же ключу выполнил бы загрузку повторно.
+ * <p>
+ * Каждая запись добавляет узел в очередь, и перезапись ключа оставляет в ней узел старой записи.
+ * Такие узлы удаляются при вытеснении, а когда их становится больше, чем живых записей, очередь
+ * очищается от них целиком, поэтому её размер не растёт от повторных записей одних и тех же ключей.
+ */
+public class ExpiringCache<K, V> {
+
+    // Допустимое превышение очереди над удвоенным числом записей до полной очистки от старых узлов
+    private static final int COMPACTION_SLACK = 64;
+
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final long ttlNanos;
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(long ttl, TimeUnit unit, int maxSize) {
+        if (ttl <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("TTL и размер кэша должны быть положительными");
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxSize = maxSize;
+    }
+
+    // Значение по ключу или null, если записи нет, она устарела или ещё загружается
+    public V get(K key) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry == null || !entry.future.isDone()) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(now)) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.future.getNow(null);
+    }
+
+    public void put(K key, V value) {
+        long now = System.nanoTime();
+        Entry<V> entry = new Entry<>();
+        entry.complete(value, now + ttlNanos);
+        entries.put(key, entry);
+        enqueue(key, entry);
+        evictIfNeeded(now);
+    }
+
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        long now = System.nanoTime();
+        Entry<V> created = new Entry<>();
+        Entry<V> current = entries.compute(key, (k, existing) ->
+                existing != null && !existing.isExpired(now) ? existing : created);
+
+        if (current != created) {
+            hits.increment();
+            return await(current);
+        }
+
+        misses.increment();
+        enqueue(key, created);
+        evictIfNeeded(now);
+
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, created);
+            created.future.completeExceptionally(e);
+            throw e;
+        }
+
+        created.complete(value, System.nanoTime() + ttlNanos);
+        // null не кэшируется: ожидающие получат его, следующий вызов загрузит заново
+        if (value == null) {
+            entries.remove(key, created);
+        }
+        return value;
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+        insertionOrder.clear();
+        queued.set(0);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void enqueue(K key, Entry<V> entry) {
+        insertionOrder.add(new Node<>(key, entry));
+        queued.incrementAndGet();
+    }
+
+    // Вытеснение выполняет один поток за раз, остальные его не ждут
+    private void evictIfNeeded(long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            evictOldest(now);
+            if (queued.get() > 2 * entries.size() + COMPACTION_SLACK) {
+                removeStaleNodes();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Удаление устаревших записей и записей сверх лимита с головы очереди добавления.
+    // При переполнении загружающиеся записи пропускаются и вытесняются следующие за ними
+    private void evictOldest(long now) {
+        Iterator<Node<K, V>> it = insertionOrder.iterator();
+        while (it.hasNext()) {
+            Node<K, V> node = it.next();
+            if (isStale(node)) {
+                it.remove();
+                queued.decrementAndGet();
+                continue;
+            }
+            boolean overflow = entries.size() > maxSize;
+            if (!node.entry.future.isDone()) {
+                if (overflow) {
+                    continue;
+                }
+                return;
+            }
+            if (!overflow && !node.entry.isExpired(now)) {
+                return;
+            }
+            it.remove();
+            queued.decrementAndGet();
+            if (entries.remove(node.key, node.entry)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // Удаление узлов перезаписанных и удалённых записей по всей очереди
+    private void removeStaleNodes() {
+        Iterator<Node<K, V>> it = insertionOrder.iterator();
+        while (it.hasNext()) {
+            if (isStale(it.next())) {
+                it.remove();
+                queued.decrementAndGet();
+            }
+        }
+    }
+
+    // Узел не соответствует текущей записи ключа: она перезаписана или удалена
+    private boolean isStale(Node<K, V> node) {
+        return entries.get(node.key) != node.entry;
+    }
+
+    private V await(Entry<V> entry) {
+        try {
+            return entry.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        private void complete(V value, long expiresAt) {
+            this.expiresAt = expiresAt;
+            future.complete(value);
+        }
+
+        // Загружающаяся запись не устаревает, пока загрузка не завершится
+        private boolean isExpired(long now) {
+            return future.isDone() && now - expiresAt >= 0;
+        }
+    }
+
+    private record Node<K, V>(K key, Entry<V> entry) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.bankapp.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Вероятностная оценка количества уникальных строк (HyperLogLog) в постоянном объёме памяти.
+ * <p>
+ * При precision = p используется 2^p регистров, стандартная ошибка оценки около 1.04 / sqrt(2^p).
+ * Добавление потокобезопасно и не блокирует: регистр обновляется CAS только при росте значения.
+ */
+public class HyperLogLog {
+
+    private final int precision;
+    private final int registerCount;
+    private final AtomicIntegerArray registers;
+    private final double alphaMM;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision должна быть от 4 до 18");
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new AtomicIntegerArray(registerCount);
+
+        double alpha = switch (registerCount) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / registerCount);
+        };
+        this.alphaMM = alpha * registerCount * registerCount;
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        // Позиция первой единицы в оставшихся битах; сторожевой бит ограничивает значение
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+
+        int current;
+        while (rank > (current = registers.get(index))) {
+            if (registers.compareAndSet(index, current, rank)) {
+                return;
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registerCount; i++) {
+            int value = registers.get(i);
+            sum += 1.0 / (1L << value);
+            if (value == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alphaMM / sum;
+        // Для малых значений точнее линейный подсчёт по пустым регистрам
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    // 64-битный FNV-1a по символам строки с финальным перемешиванием из MurmurHash3
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
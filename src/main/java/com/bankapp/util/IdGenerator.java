@@ -0,0 +1,183 @@
+package com.bankapp.util;
+
+import com.bankapp.model.Account;
+import com.bankapp.repository.AccountRepository;
+import com.bankapp.service.ClusterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Генерация идентификаторов клиентов и счетов без общего SecureRandom.
+ * <p>
+ * Номер счета и номер карты выводятся из одного порядкового номера: счет - префикс 4081 и
+ * 12 цифр номера, карта - BIN 2200, 11 цифр номера и контрольная цифра Луна. Номера
+ * разных счетов поэтому не совпадают. Потоки берут номера блоками из общего счётчика и
+ * обращаются к нему один раз на блок. При старте счётчик ставится после наибольшего номера
+ * среди уже восстановленных счетов.
+ * <p>
+ * id клиентов и счетов - UUID, где старшие 64 бита выбираются случайно один раз на запуск,
+ * а младшие содержат порядковый номер.
+ * <p>
+ * В режиме кластера генератор пропускает номера и id, которые по кольцу {@link ClusterService}
+ * принадлежат другим узлам. Узлы поэтому выдают непересекающиеся номера без согласования,
+ * а новый счет и новый клиент всегда хранятся на узле, который их создал.
+ */
+@Component
+@DependsOn("transferJournal") // счета из снимка и журнала должны быть загружены до подсчёта
+public class IdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGenerator.class);
+
+    private static final String ACCOUNT_PREFIX = "4081";
+    private static final int ACCOUNT_DIGITS = 12;
+    private static final String CARD_BIN = "2200";
+    private static final int CARD_DIGITS = 11;
+
+    // Ограничение задаёт номер карты: 11 цифр порядкового номера
+    private static final long MAX_SEQUENCE = 99_999_999_999L;
+
+    // Количество номеров, которое поток забирает из общего счётчика за одно обращение
+    private static final int BLOCK_SIZE = 256;
+
+    private final AtomicLong numberSequence;
+    private final AtomicLong idSequence = new AtomicLong();
+    private final long idHigh;
+    // Номера и id, которые может выдать этот узел; null - любые
+    private final Predicate<String> owned;
+
+    // Текущий блок потока: [следующий, конец)
+    private final ThreadLocal<long[]> numberBlocks = ThreadLocal.withInitial(() -> new long[2]);
+    private final ThreadLocal<long[]> idBlocks = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Autowired
+    public IdGenerator(AccountRepository accountRepository, ClusterService cluster) {
+        this(nextSequenceAfter(accountRepository), cluster.isEnabled() ? cluster::isLocal : null);
+    }
+
+    public IdGenerator(long firstSequence) {
+        this(firstSequence, null);
+    }
+
+    public IdGenerator(long firstSequence, Predicate<String> owned) {
+        this.numberSequence = new AtomicLong(firstSequence);
+        this.owned = owned;
+        // Версия 8 (произвольный формат по RFC 9562), старшие биты - случайные на каждый запуск
+        long random = new SecureRandom().nextLong();
+        this.idHigh = (random & ~0xF000L) | 0x8000L;
+    }
+
+    // Новый счет с нулевым балансом
+    public Account newAccount() {
+        while (true) {
+            long sequence = next(numberBlocks, numberSequence);
+            if (sequence > MAX_SEQUENCE) {
+                throw new IllegalStateException("Исчерпаны номера счетов");
+            }
+            String number = accountNumber(sequence);
+            if (owned == null || owned.test(number)) {
+                return new Account(nextId(), number, cardNumber(sequence), 0);
+            }
+        }
+    }
+
+    public String nextClientId() {
+        return nextId();
+    }
+
+    private String nextId() {
+        while (true) {
+            // Младшие 64 бита - вариант RFC 4122 (10) и порядковый номер
+            long low = next(idBlocks, idSequence) | 0x8000_0000_0000_0000L;
+            String id = new UUID(idHigh, low).toString();
+            if (owned == null || owned.test(id)) {
+                return id;
+            }
+        }
+    }
+
+    private static long next(ThreadLocal<long[]> blocks, AtomicLong sequence) {
+        long[] block = blocks.get();
+        if (block[0] == block[1]) {
+            block[0] = sequence.getAndAdd(BLOCK_SIZE);
+            block[1] = block[0] + BLOCK_SIZE;
+        }
+        return block[0]++;
+    }
+
+    static String accountNumber(long sequence) {
+        char[] chars = new char[ACCOUNT_PREFIX.length() + ACCOUNT_DIGITS];
+        ACCOUNT_PREFIX.getChars(0, ACCOUNT_PREFIX.length(), chars, 0);
+        writeDigits(sequence, chars, ACCOUNT_PREFIX.length(), ACCOUNT_DIGITS);
+        return new String(chars);
+    }
+
+    static String cardNumber(long sequence) {
+        char[] chars = new char[CARD_BIN.length() + CARD_DIGITS + 1];
+        CARD_BIN.getChars(0, CARD_BIN.length(), chars, 0);
+        writeDigits(sequence, chars, CARD_BIN.length(), CARD_DIGITS);
+        chars[chars.length - 1] = (char) ('0' + luhnCheckDigit(chars, chars.length - 1));
+        return new String(chars);
+    }
+
+    private static void writeDigits(long value, char[] chars, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // Контрольная цифра по алгоритму Луна для первых length цифр
+    static int luhnCheckDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = digits[i] - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    // Порядковый номер, следующий за наибольшим среди номеров счетов и карт в нашем формате
+    private static long nextSequenceAfter(AccountRepository accountRepository) {
+        long max = -1;
+        for (Account account : accountRepository.findAll()) {
+            max = Math.max(max, parseSequence(account.getAccountNumber(), ACCOUNT_PREFIX, ACCOUNT_DIGITS, 0));
+            max = Math.max(max, parseSequence(account.getCardNumber(), CARD_BIN, CARD_DIGITS, 1));
+        }
+        if (max >= 0) {
+            log.info("📌 Номера новых счетов начинаются с {}", max + 1);
+        }
+        return max + 1;
+    }
+
+    // -1, если номер не в формате генератора (например, создан прежним конструктором Account)
+    private static long parseSequence(String number, String prefix, int digits, int suffix) {
+        if (number == null || number.length() != prefix.length() + digits + suffix || !number.startsWith(prefix)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = prefix.length(); i < number.length() - suffix; i++) {
+            char c = number.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,179 @@
+package com.bankapp.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Распределение задержки ответа, задаваемое строкой:
+ * <ul>
+ *     <li>{@code none} - без задержки;</li>
+ *     <li>{@code fixed:20} - всегда 20 мс;</li>
+ *     <li>{@code uniform:10-50} - равномерно от 10 до 50 мс;</li>
+ *     <li>{@code normal:30,5} - нормально со средним 30 мс и отклонением 5 мс, отрицательные значения дают 0;</li>
+ *     <li>{@code percentiles:50=20,99=200,99.9=1000} - по перцентилям: между соседними точками (и от нуля
+ *     до первой) значение интерполируется линейно, выше последней точки берётся её значение.</li>
+ * </ul>
+ */
+public abstract class LatencyDistribution {
+
+    public static final LatencyDistribution NONE = new Fixed("none", 0);
+
+    private final String spec;
+
+    private LatencyDistribution(String spec) {
+        this.spec = spec;
+    }
+
+    // Случайная задержка в наносекундах
+    public abstract long sampleNanos(Random random);
+
+    public static LatencyDistribution parse(String spec) {
+        String value = spec == null ? "" : spec.trim();
+        if (value.isEmpty() || value.equals("none")) {
+            return NONE;
+        }
+        int colon = value.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Ожидается вид <тип>:<параметры>, получено: " + value);
+        }
+        String type = value.substring(0, colon);
+        String params = value.substring(colon + 1);
+        try {
+            return switch (type) {
+                case "fixed" -> new Fixed(value, millis(params));
+                case "uniform" -> {
+                    String[] range = params.split("-");
+                    if (range.length != 2) {
+                        throw new IllegalArgumentException("Ожидается uniform:<мин>-<макс>");
+                    }
+                    yield new Uniform(value, millis(range[0]), millis(range[1]));
+                }
+                case "normal" -> {
+                    String[] meanStd = params.split(",");
+                    if (meanStd.length != 2) {
+                        throw new IllegalArgumentException("Ожидается normal:<среднее>,<отклонение>");
+                    }
+                    yield new Normal(value, millis(meanStd[0]), millis(meanStd[1]));
+                }
+                case "percentiles" -> new Percentiles(value, params);
+                default -> throw new IllegalArgumentException("Неизвестный тип распределения: " + type);
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное число в описании задержки: " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static double millis(String value) {
+        double ms = Double.parseDouble(value.trim());
+        if (!(ms >= 0) || Double.isInfinite(ms)) {
+            throw new IllegalArgumentException("Задержка должна быть неотрицательной: " + value);
+        }
+        return ms;
+    }
+
+    private static long toNanos(double ms) {
+        return (long) (ms * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static final class Fixed extends LatencyDistribution {
+        private final long nanos;
+
+        private Fixed(String spec, double ms) {
+            super(spec);
+            this.nanos = toNanos(ms);
+        }
+
+        @Override
+        public long sampleNanos(Random random) {
+            return nanos;
+        }
+    }
+
+    private static final class Uniform extends LatencyDistribution {
+        private final double minMs;
+        private final double maxMs;
+
+        private Uniform(String spec, double minMs, double maxMs) {
+            super(spec);
+            if (maxMs < minMs) {
+                throw new IllegalArgumentException("Верхняя граница меньше нижней: " + spec);
+            }
+            this.minMs = minMs;
+            this.maxMs = maxMs;
+        }
+
+        @Override
+        public long sampleNanos(Random random) {
+            return toNanos(minMs + random.nextDouble() * (maxMs - minMs));
+        }
+    }
+
+    private static final class Normal extends LatencyDistribution {
+        private final double meanMs;
+        private final double stddevMs;
+
+        private Normal(String spec, double meanMs, double stddevMs) {
+            super(spec);
+            this.meanMs = meanMs;
+            this.stddevMs = stddevMs;
+        }
+
+        @Override
+        public long sampleNanos(Random random) {
+            return toNanos(Math.max(0, meanMs + random.nextGaussian() * stddevMs));
+        }
+    }
+
+    private static final class Percentiles extends LatencyDistribution {
+        // Перцентили по возрастанию (с точкой 0 = 0 мс) и соответствующие задержки
+        private final double[] percentiles;
+        private final double[] valuesMs;
+
+        private Percentiles(String spec, String params) {
+            super(spec);
+            TreeMap<Double, Double> points = new TreeMap<>();
+            points.put(0.0, 0.0);
+            for (String point : params.split(",")) {
+                String[] pv = point.split("=");
+                if (pv.length != 2) {
+                    throw new IllegalArgumentException("Ожидается percentiles:<перцентиль>=<мс>,...");
+                }
+                double percentile = Double.parseDouble(pv[0].trim());
+                if (!(percentile > 0 && percentile <= 100)) {
+                    throw new IllegalArgumentException("Перцентиль должен быть в диапазоне (0, 100]: " + pv[0]);
+                }
+                points.put(percentile, millis(pv[1]));
+            }
+            this.percentiles = points.keySet().stream().mapToDouble(Double::doubleValue).toArray();
+            this.valuesMs = points.values().stream().mapToDouble(Double::doubleValue).toArray();
+            for (int i = 1; i < valuesMs.length; i++) {
+                if (valuesMs[i] < valuesMs[i - 1]) {
+                    throw new IllegalArgumentException("Задержка не может убывать с ростом перцентиля: " + spec);
+                }
+            }
+        }
+
+        @Override
+        public long sampleNanos(Random random) {
+            double p = random.nextDouble() * 100;
+            int index = Arrays.binarySearch(percentiles, p);
+            if (index >= 0) {
+                return toNanos(valuesMs[index]);
+            }
+            int upper = -index - 1;
+            if (upper >= percentiles.length) {
+                return toNanos(valuesMs[valuesMs.length - 1]);
+            }
+            int lower = upper - 1;
+            double fraction = (p - percentiles[lower]) / (percentiles[upper] - percentiles[lower]);
+            return toNanos(valuesMs[lower] + fraction * (valuesMs[upper] - valuesMs[lower]));
+        }
+    }
+}
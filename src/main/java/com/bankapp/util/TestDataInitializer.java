@@ -4,59 +4,271 @@ import com.bankapp.model.Account;
 import com.bankapp.model.Client;
 import com.bankapp.repository.ClientRepository;
 import com.bankapp.repository.AccountRepository;
+import com.bankapp.service.AuthService;
+import com.bankapp.service.ClusterService;
+import com.bankapp.service.TestDataMetricsService;
+import com.bankapp.service.TransferJournal;
 import com.github.javafaker.Faker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
+/**
+ * Генерация тестовых клиентов и счетов при старте приложения.
+ * <p>
+ * Клиенты генерируются параллельно; имя, телефон, логин, пароль, число счетов и балансы
+ * i-го клиента зависят только от seed и i, поэтому при одинаковом seed они воспроизводимы.
+ * Идентификаторы, номера счетов и карт выдаёт {@link IdGenerator}: они уникальны, но зависят
+ * от запуска и распределения клиентов по потокам. Регистрация в authmock идёт
+ * через отдельный ограниченный пул потоков и не задерживает генерацию; при
+ * spring.threads.virtual.enabled=true на Java 21 - через виртуальные потоки с тем же ограничением.
+ * <p>
+ * В режиме кластера каждый узел генерирует и регистрирует только клиентов, чей логин ему
+ * принадлежит. При одинаковых seed и testdata.clients на всех узлах узлы вместе содержат
+ * весь набор клиентов.
+ */
 @Component
 public class TestDataInitializer implements CommandLineRunner {
+
+    public enum BalanceDistribution {
+        UNIFORM,
+        LOG_NORMAL
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(TestDataInitializer.class);
+
+    // Размер заранее подготовленных списков имён и фамилий
+    private static final int NAME_POOL_SIZE = 4096;
+
     AccountRepository accountRepository;
-    private final Faker faker = new Faker();
-    private final Random random = new Random();
-    private final RestTemplate restTemplate = new RestTemplate();
+    ClientRepository clientRepository;
+    private final AuthService authService;
+    private final TestDataMetricsService testDataMetrics;
+    private final TransferJournal transferJournal;
+    private final IdGenerator idGenerator;
+    private final ClusterService cluster;
+
+    @Value("${testdata.enabled:true}")
+    private boolean enabled;
+
+    @Value("${testdata.clients:10}")
+    private int clientCount;
+
+    @Value("${testdata.accounts-per-client.min:1}")
+    private int minAccounts;
+
+    @Value("${testdata.accounts-per-client.max:3}")
+    private int maxAccounts;
+
+    @Value("${testdata.balance.min:1000}")
+    private long minBalance;
+
+    @Value("${testdata.balance.max:10000}")
+    private long maxBalance;
+
+    @Value("${testdata.balance.distribution:UNIFORM}")
+    private BalanceDistribution balanceDistribution;
+
+    @Value("${testdata.seed:0}")
+    private long seed;
 
-    public TestDataInitializer(AccountRepository accountRepository) {
+    @Value("${testdata.parallelism:0}")
+    private int parallelism;
+
+    @Value("${testdata.register-in-authmock:true}")
+    private boolean registerInAuthmock;
+
+    @Value("${testdata.registration-concurrency:16}")
+    private int registrationConcurrency;
+
+    @Value("${testdata.progress-every:100000}")
+    private int progressEvery;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public TestDataInitializer(AccountRepository accountRepository, ClientRepository clientRepository,
+                               AuthService authService, TestDataMetricsService testDataMetrics,
+                               TransferJournal transferJournal, IdGenerator idGenerator, ClusterService cluster) {
         this.accountRepository = accountRepository;
+        this.clientRepository = clientRepository;
+        this.authService = authService;
+        this.testDataMetrics = testDataMetrics;
+        this.transferJournal = transferJournal;
+        this.idGenerator = idGenerator;
+        this.cluster = cluster;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        System.out.println("📌 Генерация тестовых данных...");
-
-        for (int i = 0; i < 10; i++) {
-            // Генерируем имя, телефон, логин и пароль
-            String fullName = faker.name().fullName();
-            String phone = "+79" + (random.nextInt(900000000) + 100000000);
-            String username = "user" + (i + 1);
-            String password = "pass" + (i + 1);
-
-            //Обращение в AuthController для регистрации пользователей в отдельном сервисе
-            String regUrl = "http://localhost:8081/auth/register?fullName=" + fullName + "&phone=" + phone
-                    + "&username=" + username + "&password=" + password;
-            restTemplate.postForObject(regUrl, null, String.class);
-
-            // Создаем клиента и сохраняем в локальном репозитории банка
-            Client client = new Client(fullName, phone, username, password);
-            ClientRepository.save(client);
-            System.out.println("✅ Создан клиент: " + fullName + " (" + phone + ") | Логин: " + username
-                    + ", Пароль: " + password);
-
-            // Создаем случайное количество счетов (от 1 до 3)
-            int accountCount = random.nextInt(3) + 1;
-            for (int j = 0; j < accountCount; j++) {
-                Account account = new Account();
-                double initialBalance = random.nextInt(9000) + 1000; // Баланс от 1000 до 10000₽
-                account.setBalance(initialBalance);
-                client.getAccounts().add(account);
-                accountRepository.save(account);
-                System.out.println("  ➕ Счет: " + account.getAccountNumber() + " | Карта: "
-                        + account.getCardNumber() + " | Баланс: " + initialBalance + "₽");
+        if (!enabled) {
+            log.info("📌 Генерация тестовых данных отключена");
+            return;
+        }
+        if (clientRepository.count() > 0) {
+            log.info("📌 Данные восстановлены из снимка или журнала, генерация тестовых данных пропущена");
+            return;
+        }
+
+        long effectiveSeed = seed != 0 ? seed : new Random().nextLong();
+        log.info("📌 Генерация тестовых данных: {} клиентов, {}-{} счетов на клиента, seed={}...",
+                clientCount, minAccounts, maxAccounts, effectiveSeed);
+
+        String[] firstNames = new String[NAME_POOL_SIZE];
+        String[] lastNames = new String[NAME_POOL_SIZE];
+        Faker faker = new Faker(new Random(effectiveSeed));
+        for (int i = 0; i < NAME_POOL_SIZE; i++) {
+            firstNames[i] = faker.name().firstName();
+            lastNames[i] = faker.name().lastName();
+        }
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool generatorPool = new ForkJoinPool(threads);
+        boolean virtualRegistration = registerInAuthmock && virtualThreads && VirtualThreads.isSupported();
+        ExecutorService registrationPool = !registerInAuthmock ? null
+                : virtualRegistration ? VirtualThreads.newPerTaskExecutor("testdata-register-")
+                : newRegistrationPool();
+        // На виртуальных потоках очередь не нужна: генерация ждёт свободного места перед запуском регистрации
+        Semaphore registrationSlots = new Semaphore(Math.max(1, registrationConcurrency));
+
+        AtomicLong generatedClients = new AtomicLong();
+        AtomicLong generatedAccounts = new AtomicLong();
+        AtomicLong registrationErrors = new AtomicLong();
+        long start = System.nanoTime();
+
+        try {
+            generatorPool.submit(() -> IntStream.range(0, clientCount).parallel().forEach(i -> {
+                if (!cluster.isLocal(username(i))) {
+                    return;
+                }
+                SplittableRandom random = new SplittableRandom(effectiveSeed ^ (i * 0x9E3779B97F4A7C15L));
+                Client client = generateClient(i, random, firstNames, lastNames);
+
+                if (virtualRegistration) {
+                    registrationSlots.acquireUninterruptibly();
+                    registrationPool.execute(() -> {
+                        try {
+                            register(client, registrationErrors);
+                        } finally {
+                            registrationSlots.release();
+                        }
+                    });
+                } else if (registrationPool != null) {
+                    registrationPool.execute(() -> register(client, registrationErrors));
+                }
+
+                generatedAccounts.addAndGet(client.getAccounts().size());
+                long done = generatedClients.incrementAndGet();
+                if (progressEvery > 0 && done % progressEvery == 0) {
+                    log.info("  ➕ Сгенерировано клиентов: {} из {}", done, clientCount);
+                }
+            })).join();
+
+            if (registrationPool != null) {
+                registrationPool.shutdown();
+                registrationPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
             }
+        } finally {
+            generatorPool.shutdown();
+        }
+
+        // Сгенерированные данные сбрасываются в журнал одним ожиданием в конце
+        transferJournal.sync();
+
+        long elapsedNanos = System.nanoTime() - start;
+        long clientsPerSecond = elapsedNanos > 0 ? generatedClients.get() * 1_000_000_000L / elapsedNanos : 0;
+        testDataMetrics.getGenerationTimer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        testDataMetrics.getGeneratedClients().increment(generatedClients.get());
+        testDataMetrics.getGeneratedAccounts().increment(generatedAccounts.get());
+        testDataMetrics.getRegistrationErrors().increment(registrationErrors.get());
+        testDataMetrics.setGenerationThroughput(clientsPerSecond);
+
+        if (registrationErrors.get() > 0) {
+            log.warn("⚠️ Не удалось зарегистрировать в authmock клиентов: {}", registrationErrors.get());
+        }
+        log.info("🎉 Генерация тестовых данных завершена! Клиентов: {}, счетов: {}, за {} мс ({} клиентов/с)",
+                generatedClients.get(), generatedAccounts.get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), clientsPerSecond);
+    }
+
+    private Client generateClient(int i, SplittableRandom random, String[] firstNames, String[] lastNames) {
+        // Генерируем имя, телефон, логин и пароль
+        String fullName = firstNames[random.nextInt(NAME_POOL_SIZE)] + " " + lastNames[random.nextInt(NAME_POOL_SIZE)];
+        String phone = "+79" + (random.nextInt(900000000) + 100000000);
+        String username = username(i);
+        String password = "pass" + (i + 1);
+
+        // Создаем клиента и сохраняем в локальном репозитории банка
+        // Клиент и счета попадают в журнал до того, как станут доступны для переводов
+        Client client = new Client(idGenerator.nextClientId(), fullName, phone, username, password);
+        transferJournal.appendClient(client, () -> clientRepository.save(client));
+
+        // Создаем случайное количество счетов в заданном диапазоне
+        int accountCount = minAccounts + random.nextInt(Math.max(1, maxAccounts - minAccounts + 1));
+        for (int j = 0; j < accountCount; j++) {
+            Account account = idGenerator.newAccount();
+            account.setBalanceKopecks(nextBalance(random) * 100);
+            transferJournal.appendAccount(client.getId(), account, () -> {
+                clientRepository.addAccount(client, account);
+                accountRepository.save(account);
+            });
+        }
+        return client;
+    }
+
+    private static String username(int i) {
+        return "user" + (i + 1);
+    }
+
+    // Начальный баланс в рублях в диапазоне [minBalance, maxBalance]
+    private long nextBalance(SplittableRandom random) {
+        if (maxBalance <= minBalance) {
+            return minBalance;
+        }
+        if (balanceDistribution == BalanceDistribution.LOG_NORMAL) {
+            // Медиана - среднее геометрическое границ, около 95% значений попадает в диапазон
+            double logMin = Math.log(Math.max(1, minBalance));
+            double logMax = Math.log(maxBalance);
+            double gaussian = nextGaussian(random);
+            long value = Math.round(Math.exp((logMin + logMax) / 2 + gaussian * (logMax - logMin) / 4));
+            return Math.min(maxBalance, Math.max(minBalance, value));
         }
+        return random.nextLong(minBalance, maxBalance + 1);
+    }
+
+    // Нормальное распределение методом Бокса-Мюллера
+    private static double nextGaussian(SplittableRandom random) {
+        double u = 1.0 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * v);
+    }
+
+    //Обращение в AuthController для регистрации пользователей в отдельном сервисе
+    private void register(Client client, AtomicLong registrationErrors) {
+        try {
+            authService.register(client.getFullName(), client.getPhone(), client.getUsername(), client.getPassword());
+        } catch (RuntimeException e) {
+            registrationErrors.incrementAndGet();
+        }
+    }
 
-        System.out.println("🎉 Генерация тестовых данных завершена!");
+    // Пул регистрации с ограниченной очередью: при её заполнении генерация притормаживает
+    private ThreadPoolExecutor newRegistrationPool() {
+        int threads = Math.max(1, registrationConcurrency);
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 64), new ThreadPoolExecutor.CallerRunsPolicy());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.bankapp.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничение частоты запросов: ведро на {@code burst} токенов, пополняемое со скоростью
+ * {@code permitsPerSecond}.
+ * <p>
+ * Вместо числа токенов хранится одно значение - момент, к которому ведро снова станет полным
+ * (алгоритм GCRA). Запрос разрешён, если этот момент наступает не позже чем через время
+ * пополнения burst токенов; разрешение сдвигает его на интервал одного токена. Обновление
+ * выполняется одним CAS, без блокировок.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    // Момент, к которому ведро будет полным; в прошлом - ведро уже полное
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Скорость и размер ведра должны быть положительными");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long base = current - now > 0 ? current : now;
+            long next = base + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // Время до появления следующего токена, в наносекундах; 0, если токен доступен сейчас
+    public long nanosUntilAvailable() {
+        long wait = fullAt.get() + intervalNanos - burstNanos - System.nanoTime();
+        return Math.max(0, wait);
+    }
+}
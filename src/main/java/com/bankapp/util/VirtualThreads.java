@@ -0,0 +1,50 @@
+package com.bankapp.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Виртуальные потоки, если приложение запущено на Java 21 и новее.
+ * <p>
+ * Основная сборка остаётся на Java 17, поэтому API виртуальных потоков вызывается через
+ * рефлексию один раз при создании исполнителя. На Java 17 {@link #isSupported()} возвращает false,
+ * и вызывающий код остаётся на обычных потоках.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    // Исполнитель, запускающий каждую задачу в новом виртуальном потоке с именем prefix + номер
+    public static ExecutorService newPerTaskExecutor(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Виртуальные потоки доступны начиная с Java 21");
+        }
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось создать исполнитель на виртуальных потоках", e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}